@@ -0,0 +1,201 @@
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Filename:   AsyncPackageManager.java
+ * Project:    p4
+ *
+ * Non-blocking front end for a PackageManager. Every resolution runs on a caller supplied
+ * executor and is returned as a CompletableFuture, which completes exceptionally with
+ * CycleException or PackageNotFoundException where the synchronous method would throw them.
+ *
+ * A resolution can be cancelled through its future or given a deadline. Either way a flag owned
+ * by the resolution is set, the PackageManager stops its traversal at the next package, and the
+ * worker is free for the next request, so a huge closure cannot hold a worker forever. The worker
+ * thread is not interrupted. A request that is cancelled or expires while still queued is never
+ * started.
+ *
+ * The PackageManager must not be modified (constructGraph) while resolutions are running.
+ */
+public class AsyncPackageManager {
+
+  private final PackageManager manager; // the synchronous package manager
+  private final Executor executor; // runs the resolutions
+  private final ScheduledThreadPoolExecutor timer; // enforces the deadlines
+
+  /**
+   * Creates the asynchronous front end
+   *
+   * @param manager  the package manager that resolves the requests
+   * @param executor the executor the resolutions run on, owned by the caller
+   */
+  public AsyncPackageManager(PackageManager manager, Executor executor) {
+    this.manager = manager;
+    this.executor = executor;
+    this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "package-manager-deadlines");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    this.timer.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * Asynchronous PackageManager.getInstallationOrder without a deadline
+   *
+   * @param pkg the package to resolve
+   * @return CompletableFuture of the installation order
+   */
+  public CompletableFuture<List<String>> getInstallationOrder(String pkg) {
+    return getInstallationOrder(pkg, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Asynchronous PackageManager.getInstallationOrder
+   *
+   * @param pkg     the package to resolve
+   * @param timeout time until the future fails with a TimeoutException, 0 for no deadline
+   * @param unit    the unit of timeout
+   * @return CompletableFuture of the installation order
+   */
+  public CompletableFuture<List<String>> getInstallationOrder(final String pkg, long timeout,
+      TimeUnit unit) {
+    return submit(new Task<List<String>>() {
+      public List<String> call(AtomicBoolean cancelled) throws Exception {
+        return manager.getInstallationOrder(pkg, cancelled);
+      }
+    }, timeout, unit);
+  }
+
+  /**
+   * Asynchronous PackageManager.toInstall without a deadline
+   *
+   * @param newPkg       the package to be installed
+   * @param installedPkg the package that is already installed
+   * @return CompletableFuture of the packages that need to be installed
+   */
+  public CompletableFuture<List<String>> toInstall(String newPkg, String installedPkg) {
+    return toInstall(newPkg, installedPkg, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Asynchronous PackageManager.toInstall
+   *
+   * @param newPkg       the package to be installed
+   * @param installedPkg the package that is already installed
+   * @param timeout      time until the future fails with a TimeoutException, 0 for no deadline
+   * @param unit         the unit of timeout
+   * @return CompletableFuture of the packages that need to be installed
+   */
+  public CompletableFuture<List<String>> toInstall(final String newPkg, final String installedPkg,
+      long timeout, TimeUnit unit) {
+    return submit(new Task<List<String>>() {
+      public List<String> call(AtomicBoolean cancelled) throws Exception {
+        return manager.toInstall(newPkg, installedPkg, cancelled);
+      }
+    }, timeout, unit);
+  }
+
+  /**
+   * Asynchronous PackageManager.getInstallationOrderForAllPackages
+   *
+   * @param timeout time until the future fails with a TimeoutException, 0 for no deadline
+   * @param unit    the unit of timeout
+   * @return CompletableFuture of the global installation order
+   */
+  public CompletableFuture<List<String>> getInstallationOrderForAllPackages(long timeout,
+      TimeUnit unit) {
+    return submit(new Task<List<String>>() {
+      public List<String> call(AtomicBoolean cancelled) throws Exception {
+        return manager.getInstallationOrderForAllPackages(cancelled);
+      }
+    }, timeout, unit);
+  }
+
+  /**
+   * This method stops the deadline timer. The executor is left to its owner.
+   */
+  public void shutdown() {
+    timer.shutdownNow();
+  }
+
+  /**
+   * Helper method that queues a resolution and arms its deadline
+   */
+  private <T> CompletableFuture<T> submit(Task<T> task, long timeout, TimeUnit unit) {
+    final Resolution<T> resolution = new Resolution<T>(task);
+    if (timeout > 0) {
+      final ScheduledFuture<?> deadline = timer.schedule(new Runnable() {
+        public void run() {
+          resolution.expire();
+        }
+      }, timeout, unit);
+      resolution.whenComplete(new BiConsumer<T, Throwable>() {
+        public void accept(T result, Throwable error) {
+          deadline.cancel(false); // no need to keep the timer entry around
+        }
+      });
+    }
+    executor.execute(resolution);
+    return resolution;
+  }
+
+  /**
+   * A resolution on the PackageManager that checks a cancellation flag while it walks the graph
+   */
+  private interface Task<T> {
+    T call(AtomicBoolean cancelled) throws Exception;
+  }
+
+  /**
+   * A future that runs its own task and sets the flag of the task when it is cancelled or expires
+   */
+  private static class Resolution<T> extends CompletableFuture<T> implements Runnable {
+    private final Task<T> task; // the synchronous resolution
+    private final AtomicBoolean cancelled = new AtomicBoolean(); // stops the running task
+
+    private Resolution(Task<T> task) {
+      this.task = task;
+    }
+
+    public void run() {
+      if (isDone()) // cancelled or expired while queued
+        return;
+      try {
+        complete(task.call(cancelled));
+      } catch (CancellationException e) {
+        cancel(false); // stopped by cancel or expire, which already completed the future
+      } catch (Throwable e) {
+        completeExceptionally(e);
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean done = super.cancel(mayInterruptIfRunning);
+      if (done)
+        cancelled.set(true);
+      return done;
+    }
+
+    /**
+     * Helper method failing the future with a TimeoutException
+     */
+    private void expire() {
+      if (completeExceptionally(new TimeoutException()))
+        cancelled.set(true);
+    }
+  }
+
+}
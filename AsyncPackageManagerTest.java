@@ -0,0 +1,193 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the AsyncPackageManager
+ */
+class AsyncPackageManagerTest {
+  private ExecutorService executor; // single worker, so that tests can keep it busy
+  private PackageManager packageManagerInstance; // the synchronous package manager
+  private AsyncPackageManager asyncInstance; // the instance under test
+
+  /**
+   * This method runs before every test method and builds a small dependency graph:
+   * A->[B, C, D], B->[C, D], D->[C], E->[C]
+   */
+  @BeforeEach
+  public void setUp() {
+    Graph graph = new Graph();
+    graph.addEdge("A", "B");
+    graph.addEdge("A", "C");
+    graph.addEdge("A", "D");
+    graph.addEdge("B", "C");
+    graph.addEdge("B", "D");
+    graph.addEdge("D", "C");
+    graph.addEdge("E", "C");
+    executor = Executors.newSingleThreadExecutor();
+    packageManagerInstance = new PackageManager(graph);
+    asyncInstance = new AsyncPackageManager(packageManagerInstance, executor);
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    asyncInstance.shutdown();
+    executor.shutdownNow();
+  }
+
+  /**
+   * Helper method that occupies the only worker until the returned latch is released
+   */
+  private CountDownLatch blockWorker() {
+    final CountDownLatch release = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          // test is over
+        }
+      }
+    });
+    return release;
+  }
+
+  /**
+   * This method checks that the futures complete with the same results as the synchronous calls
+   */
+  @Test
+  public void test001_futures_complete_with_results() throws Exception {
+    List<String> order = asyncInstance.getInstallationOrder("A").get(5, TimeUnit.SECONDS);
+    if (!order.equals(packageManagerInstance.getInstallationOrder("A")))
+      fail("The installation order should be " + packageManagerInstance.getInstallationOrder("A")
+          + " and not " + order);
+    List<String> needed = asyncInstance.toInstall("A", "E").get(5, TimeUnit.SECONDS);
+    if (!needed.equals(packageManagerInstance.toInstall("A", "E")) || needed.contains("C"))
+      fail("C is installed with E, A needs " + packageManagerInstance.toInstall("A", "E")
+          + " and not " + needed);
+  }
+
+  /**
+   * This method checks that a missing package fails the future with PackageNotFoundException
+   */
+  @Test
+  public void test002_missing_package_fails_future() throws Exception {
+    try {
+      asyncInstance.getInstallationOrder("Z").get(5, TimeUnit.SECONDS);
+      fail("Z is not in the graph");
+    } catch (ExecutionException e) {
+      if (!(e.getCause() instanceof PackageNotFoundException))
+        fail("expected PackageNotFoundException and not " + e.getCause());
+    }
+  }
+
+  /**
+   * This method checks that a request whose deadline passes while queued times out
+   */
+  @Test
+  public void test003_deadline_expires_while_queued() throws Exception {
+    CountDownLatch release = blockWorker();
+    CompletableFuture<List<String>> future =
+        asyncInstance.getInstallationOrder("A", 20, TimeUnit.MILLISECONDS);
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      fail("the request should have timed out");
+    } catch (ExecutionException e) {
+      if (!(e.getCause() instanceof TimeoutException))
+        fail("expected TimeoutException and not " + e.getCause());
+    } finally {
+      release.countDown();
+    }
+  }
+
+  /**
+   * This method checks that a cancelled request does not block the worker for later requests
+   */
+  @Test
+  public void test004_cancelled_request_is_skipped() throws Exception {
+    CountDownLatch release = blockWorker();
+    CompletableFuture<List<String>> cancelled = asyncInstance.getInstallationOrderForAllPackages(0,
+        TimeUnit.MILLISECONDS);
+    CompletableFuture<List<String>> next = asyncInstance.getInstallationOrder("D");
+    cancelled.cancel(true);
+    release.countDown();
+    if (!cancelled.isCancelled())
+      fail("the request should be cancelled");
+    if (!next.get(5, TimeUnit.SECONDS).equals(Arrays.asList("C", "D")))
+      fail("the next request must still be resolved");
+  }
+
+  /**
+   * This method checks that a resolution that is already running stops when it expires or is
+   * cancelled, and that the worker then picks up the next request. Resolving a0 walks every
+   * path of a ladder a0..a40/b0..b40, 2^40 of them, so it never finishes on its own.
+   */
+  @Test
+  public void test005_running_resolution_is_stopped() throws Exception {
+    Graph ladder = new Graph();
+    for (int i = 0; i < 40; i++) {
+      ladder.addEdge("a" + i, "a" + (i + 1));
+      ladder.addEdge("a" + i, "b" + (i + 1));
+      ladder.addEdge("b" + i, "a" + (i + 1));
+      ladder.addEdge("b" + i, "b" + (i + 1));
+    }
+    AsyncPackageManager async = new AsyncPackageManager(new PackageManager(ladder), executor);
+    try {
+      CompletableFuture<List<String>> expiring =
+          async.getInstallationOrder("a0", 200, TimeUnit.MILLISECONDS);
+      CompletableFuture<List<String>> next = async.getInstallationOrder("a39");
+      try {
+        expiring.get(5, TimeUnit.SECONDS);
+        fail("the resolution of a0 should have timed out");
+      } catch (ExecutionException e) {
+        if (!(e.getCause() instanceof TimeoutException))
+          fail("expected TimeoutException and not " + e.getCause());
+      }
+      if (!new HashSet<String>(next.get(5, TimeUnit.SECONDS))
+          .equals(new HashSet<String>(Arrays.asList("a39", "a40", "b40"))))
+        fail("the worker must resolve the next request after the timeout");
+
+      CompletableFuture<List<String>> cancelled = async.getInstallationOrder("b0");
+      next = async.getInstallationOrder("b39");
+      Thread.sleep(100); // let the worker start on b0
+      cancelled.cancel(true);
+      if (!new HashSet<String>(next.get(5, TimeUnit.SECONDS))
+          .equals(new HashSet<String>(Arrays.asList("b39", "a40", "b40"))))
+        fail("the worker must resolve the next request after the cancellation");
+    } finally {
+      async.shutdown();
+    }
+  }
+
+  /**
+   * This method checks that synchronous resolutions ignore the interrupt flag of the calling
+   * thread, only the asynchronous front end cancels them
+   */
+  @Test
+  public void test006_synchronous_resolution_ignores_interrupts() throws Exception {
+    Thread.currentThread().interrupt();
+    try {
+      if (!packageManagerInstance.getInstallationOrder("D").equals(Arrays.asList("C", "D")))
+        fail("the order of D must be resolved with the interrupt flag set");
+      if (!Thread.currentThread().isInterrupted())
+        fail("the interrupt flag of the caller must be left alone");
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+}
@@ -0,0 +1,216 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONValue;
+
+/**
+ * Filename:   BatchResolver.java
+ * Project:    p4
+ *
+ * Resolves many queries against one loaded PackageManager, so a script pays the JVM startup and
+ * the json parsing once instead of once per package. Every input line is one query:
+ *
+ * A      the installation order of A
+ * A B    the packages to install for A when B is installed
+ *
+ * Blank lines are skipped. Every query is answered with one line of JSON, in input order:
+ *
+ * {"pkg":"A","order":["D","C","B","A"]}
+ * {"new":"A","installed":"B","toInstall":["C","A"]}
+ * {"pkg":"Z","error":"PackageNotFoundException"}
+ * {"query":"A B C","error":"malformed query"}
+ *
+ * A query that fails with an exception is answered with an error line and does not abort the
+ * batch. Errors are not caught. The resolution is recursive, one frame per package on the path,
+ * so the resolving threads get a STACK_BYTES stack to resolve deep dependency chains instead of
+ * overflowing on them.
+ *
+ * Queries are resolved on a thread pool. At most WINDOW queries per thread are in flight, and
+ * each answer is written as soon as it and all earlier ones are done, so output starts right away
+ * and memory stays bounded for any number of queries.
+ */
+public class BatchResolver {
+
+  private static final int WINDOW = 64; // queries in flight per thread
+  private static final long STACK_BYTES = 256L << 20; // reserved, used as deep as chains go
+
+  private final PackageManager manager; // resolves the queries, not modified while running
+  private final int threads; // number of resolving threads
+  private final LongAdder errors = new LongAdder(); // queries of the last run that failed
+  private long queries; // queries answered by the last run
+
+  /**
+   * Creates a batch resolver
+   *
+   * @param manager the package manager with the loaded graph
+   * @param threads number of resolving threads
+   */
+  public BatchResolver(PackageManager manager, int threads) {
+    this.manager = manager;
+    this.threads = threads;
+  }
+
+  /**
+   * This method answers every query of the input
+   *
+   * @param in  the queries, one per line
+   * @param out receives one line of JSON per query, flushed at the end
+   * @return the number of queries answered
+   * @throws IOException if the input cannot be read or the output cannot be written
+   */
+  public long run(Reader in, Writer out) throws IOException {
+    BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in
+        : new BufferedReader(in);
+    BufferedWriter writer = out instanceof BufferedWriter ? (BufferedWriter) out
+        : new BufferedWriter(out, 1 << 16);
+    ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(null, r, "batch-resolver", STACK_BYTES);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+    ArrayDeque<Future<String>> window = new ArrayDeque<Future<String>>();
+    queries = 0;
+    errors.reset();
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        final String trimmed = line.trim();
+        final String[] query = trimmed.split("\\s+");
+        if (query[0].isEmpty())
+          continue;
+        window.add(pool.submit(new Callable<String>() {
+          public String call() {
+            return answer(query, trimmed);
+          }
+        }));
+        if (window.size() >= threads * WINDOW)
+          write(window.poll(), writer);
+      }
+      while (!window.isEmpty())
+        write(window.poll(), writer);
+      writer.flush();
+    } finally {
+      pool.shutdownNow();
+    }
+    return queries;
+  }
+
+  /**
+   * @return the number of queries of the last run answered with an error
+   */
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  /**
+   * Helper method waiting for the oldest answer and writing it
+   */
+  private void write(Future<String> answer, BufferedWriter writer) throws IOException {
+    String json;
+    try {
+      json = answer.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("batch interrupted");
+    } catch (ExecutionException e) {
+      throw new IOException("query failed", e.getCause());
+    }
+    queries++;
+    writer.write(json);
+    writer.write('\n'); // the same NDJSON on every platform
+  }
+
+  /**
+   * Helper method resolving one query into its line of JSON. Keys are written in a fixed order so
+   * the output can be compared line by line. Every exception becomes an error line.
+   */
+  private String answer(String[] query, String line) {
+    if (query.length > 2) {
+      errors.increment();
+      return "{\"query\":" + quote(line) + ",\"error\":\"malformed query\"}";
+    }
+    StringBuilder json = new StringBuilder("{");
+    if (query.length == 1)
+      json.append("\"pkg\":").append(quote(query[0]));
+    else
+      json.append("\"new\":").append(quote(query[0])).append(",\"installed\":")
+          .append(quote(query[1]));
+    try {
+      List<String> result = query.length == 1 ? manager.getInstallationOrder(query[0])
+          : manager.toInstall(query[0], query[1]);
+      json.append(query.length == 1 ? ",\"order\":" : ",\"toInstall\":")
+          .append(JSONArray.toJSONString(result));
+    } catch (PackageNotFoundException e) {
+      errors.increment();
+      json.append(",\"error\":\"PackageNotFoundException\"");
+    } catch (CycleException e) {
+      errors.increment();
+      json.append(",\"error\":\"CycleException\"");
+    } catch (RuntimeException e) { // a bug behind one query must not abort the batch
+      errors.increment();
+      json.append(",\"error\":").append(quote(e.getClass().getSimpleName()));
+    }
+    return json.append('}').toString();
+  }
+
+  /**
+   * Helper method writing a JSON string
+   */
+  private static String quote(String value) {
+    return "\"" + JSONValue.escape(value) + "\"";
+  }
+
+  /**
+   * Runs a batch: java BatchResolver packages.json [queries|-] [threads]
+   *
+   * Queries are read from the given file, or from standard input if it is missing or "-". The
+   * answers go to standard output and the throughput to standard error.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("usage: java BatchResolver <packages.json> [queries|-] [threads]");
+      System.exit(2);
+    }
+    long start = System.nanoTime();
+    PackageManager manager = new PackageManager();
+    manager.constructGraph(args[0]);
+    long loaded = System.nanoTime();
+
+    InputStream input = args.length > 1 && !args[1].equals("-") ? new FileInputStream(args[1])
+        : System.in;
+    int threads = args.length > 2 ? Integer.parseInt(args[2])
+        : Runtime.getRuntime().availableProcessors();
+    BatchResolver batch = new BatchResolver(manager, threads);
+    long count;
+    try {
+      count = batch.run(new InputStreamReader(input, StandardCharsets.UTF_8),
+          new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    } finally {
+      input.close();
+    }
+    long done = System.nanoTime();
+    System.err.printf("loaded %d packages in %.3fs, resolved %d queries (%d errors) in %.3fs, "
+        + "%.1f queries/s%n", manager.getAllPackages().size(), (loaded - start) / 1e9, count,
+        batch.getErrors(), (done - loaded) / 1e9, count / Math.max(1e-9, (done - loaded) / 1e9));
+  }
+
+}
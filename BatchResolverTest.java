@@ -0,0 +1,114 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import org.json.simple.JSONArray;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the BatchResolver
+ */
+class BatchResolverTest {
+  private PackageManager packageManagerInstance; // the package manager behind the batch
+
+  /**
+   * This method runs before every test method and builds the graph
+   * A->[B, C], B->[D], C->[D], E->[D], F->[G], G->[F]
+   */
+  @BeforeEach
+  public void setUp() {
+    Graph graph = new Graph();
+    graph.addEdge("A", "B");
+    graph.addEdge("A", "C");
+    graph.addEdge("B", "D");
+    graph.addEdge("C", "D");
+    graph.addEdge("E", "D");
+    graph.addEdge("F", "G");
+    graph.addEdge("G", "F");
+    packageManagerInstance = new PackageManager(graph);
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    packageManagerInstance = null;
+  }
+
+  /**
+   * This method checks the answers to orders, toInstall pairs and failing queries
+   */
+  @Test
+  public void test001_one_line_of_json_per_query() throws Exception {
+    StringWriter out = new StringWriter();
+    BatchResolver batch = new BatchResolver(packageManagerInstance, 2);
+    long count = batch.run(new StringReader("E\n\n  A   E \nZ\nF\n"), out);
+    String expected = "{\"pkg\":\"E\",\"order\":[\"D\",\"E\"]}\n"
+        + "{\"new\":\"A\",\"installed\":\"E\",\"toInstall\":"
+        + JSONArray.toJSONString(packageManagerInstance.toInstall("A", "E"))
+        + "}\n" + "{\"pkg\":\"Z\",\"error\":\"PackageNotFoundException\"}\n"
+        + "{\"pkg\":\"F\",\"error\":\"CycleException\"}\n";
+    if (count != 4 || batch.getErrors() != 2)
+      fail("4 queries with 2 errors, but got " + count + " and " + batch.getErrors());
+    if (!out.toString().equals(expected))
+      fail("expected\n" + expected + "but got\n" + out);
+  }
+
+  /**
+   * This method checks that a batch larger than the window keeps the input order
+   */
+  @Test
+  public void test002_large_batch_keeps_input_order() throws Exception {
+    StringBuilder in = new StringBuilder();
+    for (int i = 0; i < 5000; i++)
+      in.append(i % 2 == 0 ? "A" : "E").append('\n');
+    StringWriter out = new StringWriter();
+    if (new BatchResolver(packageManagerInstance, 4).run(new StringReader(in.toString()),
+        out) != 5000)
+      fail("every query must be answered");
+    String[] lines = out.toString().split("\n");
+    for (int i = 0; i < 5000; i++) {
+      if (!lines[i].startsWith(i % 2 == 0 ? "{\"pkg\":\"A\"" : "{\"pkg\":\"E\""))
+        fail("line " + i + " answers the wrong query: " + lines[i]);
+    }
+  }
+
+  /**
+   * This method checks that malformed queries and queries failing with an unchecked exception are
+   * answered with an error line and do not abort the batch, and that a dependency chain deeper
+   * than a default thread stack is resolved
+   */
+  @Test
+  public void test003_failures_do_not_abort_the_batch() throws Exception {
+    Graph chain = new Graph(true) {
+      @Override
+      public List<String> getAdjacentVerticesOf(String vertex) {
+        if (vertex.equals("X"))
+          throw new IllegalStateException("broken storage");
+        return super.getAdjacentVerticesOf(vertex);
+      }
+    };
+    for (int i = 0; i < 5000; i++) // overflows the recursive resolution on a default stack
+      chain.addEdge("c" + i, "c" + (i + 1));
+    chain.addEdge("E", "D");
+    chain.addVertex("X");
+    StringWriter out = new StringWriter();
+    BatchResolver batch = new BatchResolver(new PackageManager(chain), 1);
+    long count = batch.run(new StringReader("c0\nX\nA B C\nE\n"), out);
+    String[] lines = out.toString().split("\n");
+    if (count != 4 || batch.getErrors() != 2 || lines.length != 4)
+      fail("4 queries with 2 errors, but got " + count + " and " + batch.getErrors());
+    if (!lines[0].startsWith("{\"pkg\":\"c0\",\"order\":[\"c5000\",\"c4999\""))
+      fail("the chain of c0 must be resolved, not " + lines[0].substring(0, 40));
+    String expected = "{\"pkg\":\"X\",\"error\":\"IllegalStateException\"}\n"
+        + "{\"query\":\"A B C\",\"error\":\"malformed query\"}\n"
+        + "{\"pkg\":\"E\",\"order\":[\"D\",\"E\"]}\n";
+    String rest = out.toString().substring(lines[0].length() + 1);
+    if (!rest.equals(expected))
+      fail("expected\n" + expected + "but got\n" + rest);
+  }
+
+}
@@ -0,0 +1,209 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Filename:   BlastRadius.java
+ * Project:    p4
+ *
+ * Answers "which packages are affected if these packages are compromised", i.e. every package
+ * that transitively depends on one of the affected packages, ranked by how many dependency hops it
+ * is away from the nearest affected package.
+ *
+ * The Graph only stores the dependencies of each package, so the query engine keeps a reversed
+ * snapshot of the graph and runs one multi-source BFS over it. A query is linear in the size of the
+ * affected part of the graph, no matter how many packages are affected: the queue and the set of
+ * seen packages grow with the result instead of being sized for the whole registry.
+ *
+ * The engine is a snapshot, call rebuild() after the graph has been modified.
+ */
+public class BlastRadius {
+
+  /**
+   * Receives dependents as soon as the BFS finds them. Dependents are reported in increasing
+   * depth, so the packages closest to the affected ones arrive first.
+   */
+  public interface DependentListener {
+
+    /**
+     * Called once for every dependent
+     *
+     * @param pkg   the dependent package
+     * @param depth the number of dependency hops to the nearest affected package
+     */
+    public void onDependent(String pkg, int depth);
+  }
+
+  /**
+   * A package that transitively depends on an affected package
+   */
+  public static class Dependent {
+    private String name;
+    private int depth;
+
+    public Dependent(String name, int depth) {
+      this.name = name;
+      this.depth = depth;
+    }
+
+    public String getName() {
+      return this.name;
+    }
+
+    public int getDepth() {
+      return this.depth;
+    }
+
+    @Override
+    public String toString() {
+      return name + "@" + depth;
+    }
+  }
+
+  private final GraphADT graph; // the dependency graph
+  private IndexedGraph dependents; // reversed snapshot, adjacency lists are direct dependents
+
+  /**
+   * Creates the query engine for the given graph
+   *
+   * @param graph the dependency graph
+   */
+  public BlastRadius(GraphADT graph) {
+    this.graph = graph;
+    rebuild();
+  }
+
+  /**
+   * This method recomputes the reversed snapshot from the current state of the graph
+   */
+  public void rebuild() {
+    dependents = IndexedGraph.of(graph).reverse();
+  }
+
+  /**
+   * This method returns every package that transitively depends on one of the affected packages,
+   * ordered by depth. The affected packages themselves are not part of the result.
+   *
+   * @param affected the affected packages
+   * @return List<Dependent> of the dependents ranked by depth
+   * @throws PackageNotFoundException if an affected package is not in the graph
+   */
+  public List<Dependent> dependentsOf(Collection<String> affected)
+      throws PackageNotFoundException {
+    final List<Dependent> result = new ArrayList<Dependent>();
+    streamDependentsOf(affected, new DependentListener() {
+      public void onDependent(String pkg, int depth) {
+        result.add(new Dependent(pkg, depth));
+      }
+    });
+    return result;
+  }
+
+  /**
+   * This method returns every package that transitively depends on the affected package, ordered
+   * by depth.
+   *
+   * @param affected the affected package
+   * @return List<Dependent> of the dependents ranked by depth
+   * @throws PackageNotFoundException if the package is not in the graph
+   */
+  public List<Dependent> dependentsOf(String affected) throws PackageNotFoundException {
+    return dependentsOf(Collections.singletonList(affected));
+  }
+
+  /**
+   * This method reports every package that transitively depends on one of the affected packages
+   * to the listener while the reverse BFS runs.
+   *
+   * @param affected the affected packages
+   * @param listener receives the dependents in increasing depth
+   * @return the number of dependents reported
+   * @throws PackageNotFoundException if an affected package is not in the graph, checked before
+   *                                  anything is reported
+   */
+  public int streamDependentsOf(Collection<String> affected, DependentListener listener)
+      throws PackageNotFoundException {
+    int[] queue = new int[Math.max(16, affected.size())];
+    IdSet seen = new IdSet();
+    int tail = 0;
+    for (String pkg : affected) { // all affected packages are sources at depth 0
+      int id = dependents.idOf(pkg);
+      if (id < 0)
+        throw new PackageNotFoundException();
+      if (seen.add(id))
+        queue[tail++] = id;
+    }
+
+    int reported = 0;
+    int head = 0;
+    int depth = 0;
+    while (head < tail) {
+      int levelEnd = tail; // the queue holds one BFS level at a time between head and levelEnd
+      depth++;
+      while (head < levelEnd) {
+        int v = queue[head++];
+        for (int i = 0; i < dependents.outDegree(v); i++) {
+          int w = dependents.successor(v, i);
+          if (seen.add(w)) {
+            if (tail == queue.length)
+              queue = Arrays.copyOf(queue, tail * 2);
+            queue[tail++] = w;
+            listener.onDependent(dependents.nameOf(w), depth);
+            reported++;
+          }
+        }
+      }
+    }
+    return reported;
+  }
+
+  /**
+   * A set of vertex ids, open addressing with linear probing, sized to its content
+   */
+  private static class IdSet {
+    private int[] slots = newSlots(32); // ids, -1 for empty slots
+    private int size; // number of ids in the set
+
+    /**
+     * @param id a vertex id, not negative
+     * @return true if the id was not in the set yet
+     */
+    private boolean add(int id) {
+      if ((size + 1) * 2 > slots.length) { // keep the set at most half full
+        int[] old = slots;
+        slots = newSlots(old.length * 2);
+        for (int stored : old) {
+          if (stored >= 0)
+            slots[probe(stored)] = stored;
+        }
+      }
+      int slot = probe(id);
+      if (slots[slot] == id)
+        return false;
+      slots[slot] = id;
+      size++;
+      return true;
+    }
+
+    /**
+     * Helper method returning the slot holding id, or the empty slot where it belongs
+     */
+    private int probe(int id) {
+      int mask = slots.length - 1;
+      int hash = id * 0x9E3779B9; // consecutive ids spread over the whole table
+      int slot = (hash ^ (hash >>> 16)) & mask;
+      while (slots[slot] >= 0 && slots[slot] != id)
+        slot = (slot + 1) & mask;
+      return slot;
+    }
+
+    private static int[] newSlots(int length) {
+      int[] slots = new int[length];
+      Arrays.fill(slots, -1);
+      return slots;
+    }
+  }
+
+}
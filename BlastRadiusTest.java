@@ -0,0 +1,118 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the BlastRadius query engine
+ */
+class BlastRadiusTest {
+  private Graph graphInstance; // the dependency graph used by every test
+
+  /**
+   * This method runs before every test method and builds the graph
+   * A->[B, C], B->[D], C->[D], D->[E], F->[E], G
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new Graph();
+    graphInstance.addEdge("A", "B");
+    graphInstance.addEdge("A", "C");
+    graphInstance.addEdge("B", "D");
+    graphInstance.addEdge("C", "D");
+    graphInstance.addEdge("D", "E");
+    graphInstance.addEdge("F", "E");
+    graphInstance.addVertex("G");
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    graphInstance = null;
+  }
+
+  /**
+   * This method checks that all dependents are found with their shortest depth
+   */
+  @Test
+  public void test001_dependents_ranked_by_depth() throws Exception {
+    List<BlastRadius.Dependent> result = new BlastRadius(graphInstance).dependentsOf("E");
+    if (result.size() != 5)
+      fail("D, F, B, C and A depend on E, but got " + result);
+    int previous = 0;
+    for (BlastRadius.Dependent dependent : result) {
+      if (dependent.getDepth() < previous)
+        fail("dependents must be ordered by depth: " + result);
+      previous = dependent.getDepth();
+      if (dependent.getName().equals("A") && dependent.getDepth() != 3)
+        fail("A is three hops away from E");
+      if (dependent.getName().equals("F") && dependent.getDepth() != 1)
+        fail("F directly depends on E");
+    }
+  }
+
+  /**
+   * This method checks that several affected packages are handled by one query and are not
+   * reported themselves
+   */
+  @Test
+  public void test002_multiple_affected_packages() throws Exception {
+    final List<String> streamed = new ArrayList<String>();
+    int count = new BlastRadius(graphInstance).streamDependentsOf(Arrays.asList("B", "D"),
+        new BlastRadius.DependentListener() {
+          public void onDependent(String pkg, int depth) {
+            streamed.add(pkg + depth);
+          }
+        });
+    if (count != 2 || !streamed.contains("A1") || !streamed.contains("C1"))
+      fail("A and C are one hop away from B or D, but got " + streamed);
+  }
+
+  /**
+   * This method checks that an unknown package throws PackageNotFoundException
+   */
+  @Test
+  public void test003_unknown_package_throws_exception() {
+    try {
+      new BlastRadius(graphInstance).dependentsOf("Z");
+      fail("Z is not in the graph");
+    } catch (PackageNotFoundException e) {
+      // expected
+    }
+  }
+
+  /**
+   * This method checks that a package nothing depends on has no dependents
+   */
+  @Test
+  public void test004_no_dependents() throws Exception {
+    if (!new BlastRadius(graphInstance).dependentsOf("G").isEmpty())
+      fail("nothing depends on G");
+  }
+
+  /**
+   * This method checks a result large enough to grow the queue and the set of seen packages
+   * several times, each dependent reported once at its shortest depth
+   */
+  @Test
+  public void test005_large_result() throws Exception {
+    for (int i = 1; i < 20000; i++) // p(i) depends on p(i / 2), a binary tree rooted at p0
+      graphInstance.addEdge("p" + i, "p" + (i / 2));
+    List<BlastRadius.Dependent> dependents = new BlastRadius(graphInstance).dependentsOf("p0");
+    if (dependents.size() != 19999)
+      fail("every other p depends on p0, but got " + dependents.size());
+    boolean[] reported = new boolean[20000];
+    for (BlastRadius.Dependent dependent : dependents) {
+      int i = Integer.parseInt(dependent.getName().substring(1));
+      if (reported[i] || dependent.getDepth() != 32 - Integer.numberOfLeadingZeros(i))
+        fail(dependent + " must be reported once at depth log2(" + i + ") + 1");
+      reported[i] = true;
+    }
+  }
+
+}
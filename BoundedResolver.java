@@ -0,0 +1,139 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Filename:   BoundedResolver.java
+ * Project:    p4
+ *
+ * Resolves the part of a dependency closure that fits into a depth, size or time budget, e.g.
+ * the direct and second-level dependencies shown by a UI, or whatever can be resolved within the
+ * latency budget of a request. The closure is searched breadth first from the target with the
+ * depth of every package, so the nearest dependencies are always resolved before farther ones,
+ * and the search stops as soon as a limit is reached. The resolved packages are then ordered
+ * with a depth first search that only follows edges between resolved packages.
+ *
+ * The order of a truncated resolution is valid for the resolved packages: each comes after all
+ * of its resolved dependencies. The dependencies that were left out are behind the frontier of
+ * the result. A CycleException is only thrown for a cycle among the resolved packages.
+ */
+public class BoundedResolver {
+
+  private static final int CLOCK_INTERVAL = 64; // packages expanded between deadline checks
+
+  private final GraphADT graph; // the dependency graph
+
+  /**
+   * Creates a resolver for a graph
+   *
+   * @param graph the dependency graph
+   */
+  public BoundedResolver(GraphADT graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * This method resolves a package as far as the limits allow
+   *
+   * @param pkg    the package to resolve
+   * @param limits the depth, size and time bounds
+   * @return PartialResolution with the resolved packages in installation order
+   * @throws CycleException           if the resolved packages contain a cycle
+   * @throws PackageNotFoundException if the package does not exist in the dependency graph
+   */
+  public PartialResolution resolve(String pkg, ResolutionLimits limits)
+      throws CycleException, PackageNotFoundException {
+    if (!graph.getAllVertices().contains(pkg))
+      throw new PackageNotFoundException();
+    long start = System.nanoTime();
+    int maxDepth = limits.getMaxDepth() < 0 ? Integer.MAX_VALUE : limits.getMaxDepth();
+    int maxPackages = limits.getMaxPackages() < 0 ? Integer.MAX_VALUE
+        : Math.max(1, limits.getMaxPackages());
+    long timeout = limits.getTimeoutMillis() < 0 ? Long.MAX_VALUE
+        : limits.getTimeoutMillis() * 1000000L;
+
+    // breadth first search, the depths also mark the resolved packages
+    LinkedHashMap<String, Integer> depths = new LinkedHashMap<String, Integer>();
+    ArrayDeque<String> queue = new ArrayDeque<String>();
+    PartialResolution.Truncation truncation = PartialResolution.Truncation.NONE;
+    depths.put(pkg, 0);
+    queue.add(pkg);
+    int expanded = 0;
+    search: while (!queue.isEmpty()) {
+      if (expanded++ % CLOCK_INTERVAL == 0 && System.nanoTime() - start >= timeout) {
+        truncation = PartialResolution.Truncation.DEADLINE;
+        break;
+      }
+      String current = queue.poll();
+      int depth = depths.get(current);
+      if (depth >= maxDepth)
+        continue; // its dependencies are beyond the depth limit
+      for (String dependency : graph.getAdjacentVerticesOf(current)) {
+        if (depths.containsKey(dependency))
+          continue;
+        if (depths.size() >= maxPackages) {
+          truncation = PartialResolution.Truncation.PACKAGES;
+          break search;
+        }
+        depths.put(dependency, depth + 1);
+        queue.add(dependency);
+      }
+    }
+
+    List<String> order = order(pkg, depths);
+    List<String> frontier = new ArrayList<String>();
+    for (String resolved : order) {
+      for (String dependency : graph.getAdjacentVerticesOf(resolved)) {
+        if (!depths.containsKey(dependency)) {
+          frontier.add(resolved);
+          break;
+        }
+      }
+    }
+    if (frontier.isEmpty()) // a limit may be hit just when nothing is left
+      truncation = PartialResolution.Truncation.NONE;
+    else if (truncation == PartialResolution.Truncation.NONE)
+      truncation = PartialResolution.Truncation.DEPTH;
+    return new PartialResolution(pkg, order, depths, frontier, truncation);
+  }
+
+  /**
+   * Helper method ordering the resolved packages, dependencies first, with an iterative depth
+   * first search from the target that skips packages that were not resolved
+   */
+  private List<String> order(String pkg, HashMap<String, Integer> resolved)
+      throws CycleException {
+    HashMap<String, Boolean> visited = new HashMap<String, Boolean>(); // false while on the path
+    ArrayDeque<String> path = new ArrayDeque<String>();
+    ArrayDeque<Iterator<String>> pending = new ArrayDeque<Iterator<String>>();
+    List<String> order = new ArrayList<String>(resolved.size());
+    visited.put(pkg, false);
+    path.push(pkg);
+    pending.push(graph.getAdjacentVerticesOf(pkg).iterator());
+    while (!path.isEmpty()) {
+      if (pending.peek().hasNext()) {
+        String dependency = pending.peek().next();
+        if (!resolved.containsKey(dependency))
+          continue;
+        Boolean done = visited.get(dependency);
+        if (done == null) {
+          visited.put(dependency, false);
+          path.push(dependency);
+          pending.push(graph.getAdjacentVerticesOf(dependency).iterator());
+        } else if (!done) {
+          throw new CycleException();
+        }
+      } else {
+        String current = path.pop();
+        pending.pop();
+        visited.put(current, true);
+        order.add(current);
+      }
+    }
+    return order;
+  }
+
+}
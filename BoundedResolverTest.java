@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the BoundedResolver
+ */
+class BoundedResolverTest {
+  private Graph graphInstance; // the dependency graph used by every test
+  private BoundedResolver resolverInstance; // the resolver used by every test
+
+  /**
+   * This method runs before every test method and builds the graph
+   * A->[B, C], B->[D], C->[D, E], D->[F], E->[F], X->[Y], Y->[X]
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new Graph();
+    graphInstance.addEdge("A", "B");
+    graphInstance.addEdge("A", "C");
+    graphInstance.addEdge("B", "D");
+    graphInstance.addEdge("C", "D");
+    graphInstance.addEdge("C", "E");
+    graphInstance.addEdge("D", "F");
+    graphInstance.addEdge("E", "F");
+    graphInstance.addEdge("X", "Y");
+    graphInstance.addEdge("Y", "X");
+    resolverInstance = new BoundedResolver(graphInstance);
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    graphInstance = null;
+    resolverInstance = null;
+  }
+
+  /**
+   * Helper method checking that every package comes after its resolved dependencies
+   */
+  private void checkOrder(List<String> order) {
+    for (int i = 0; i < order.size(); i++) {
+      for (String dependency : graphInstance.getAdjacentVerticesOf(order.get(i))) {
+        int position = order.indexOf(dependency);
+        if (position > i)
+          fail(order.get(i) + " must come after " + dependency + " in " + order);
+      }
+    }
+  }
+
+  /**
+   * This method checks that a resolution without limits is complete
+   */
+  @Test
+  public void test001_no_limits_resolves_the_closure() throws Exception {
+    PartialResolution result = resolverInstance.resolve("A", ResolutionLimits.NONE);
+    if (result.isTruncated() || !result.getFrontier().isEmpty())
+      fail("a resolution without limits must not be truncated");
+    if (!new HashSet<String>(result.getOrder())
+        .equals(new HashSet<String>(Arrays.asList("A", "B", "C", "D", "E", "F"))))
+      fail("A needs A to F, but got " + result.getOrder());
+    if (!result.getOrder().get(5).equals("A"))
+      fail("the target must be installed last, but got " + result.getOrder());
+    checkOrder(result.getOrder());
+    if (result.getDepth("A") != 0 || result.getDepth("D") != 2 || result.getDepth("F") != 3)
+      fail("depths are shortest distances from A");
+  }
+
+  /**
+   * This method checks the depth and package limits
+   */
+  @Test
+  public void test002_depth_and_size_limits_truncate() throws Exception {
+    PartialResolution result = resolverInstance.resolve("A", ResolutionLimits.depth(1));
+    if (result.getTruncation() != PartialResolution.Truncation.DEPTH)
+      fail("depth 1 leaves out D, E and F, but truncation = " + result.getTruncation());
+    if (!new HashSet<String>(result.getOrder())
+        .equals(new HashSet<String>(Arrays.asList("A", "B", "C"))))
+      fail("depth 1 resolves A and its direct dependencies, but got " + result.getOrder());
+    if (!new HashSet<String>(result.getFrontier())
+        .equals(new HashSet<String>(Arrays.asList("B", "C"))))
+      fail("B and C have unresolved dependencies, but frontier = " + result.getFrontier());
+    checkOrder(result.getOrder());
+
+    result = resolverInstance.resolve("C", ResolutionLimits.depth(2));
+    if (result.isTruncated() || result.getOrder().size() != 4)
+      fail("the closure of C is 2 deep, depth 2 must resolve all of it");
+
+    result = resolverInstance.resolve("A", new ResolutionLimits(-1, 4, -1));
+    if (result.getTruncation() != PartialResolution.Truncation.PACKAGES
+        || result.getOrder().size() != 4)
+      fail("4 packages must be resolved, but got " + result.getOrder());
+    if (result.getDepth("F") != -1 || result.getDepth("D") != 2)
+      fail("the nearest packages are resolved first, but got " + result.getOrder());
+    checkOrder(result.getOrder());
+  }
+
+  /**
+   * This method checks the deadline and cycles inside and outside the resolved packages
+   */
+  @Test
+  public void test003_deadline_and_cycles() throws Exception {
+    PartialResolution result = resolverInstance.resolve("A", new ResolutionLimits(-1, -1, 0));
+    if (result.getTruncation() != PartialResolution.Truncation.DEADLINE
+        || !result.getOrder().equals(Arrays.asList("A")))
+      fail("an expired deadline resolves only the target, but got " + result.getOrder());
+
+    graphInstance.addEdge("F", "X"); // a cycle three levels below A
+    result = resolverInstance.resolve("A", ResolutionLimits.depth(3));
+    if (result.getTruncation() != PartialResolution.Truncation.DEPTH
+        || !result.getFrontier().equals(Arrays.asList("F")))
+      fail("the cycle behind F is beyond the limit, but got " + result.getOrder());
+    try {
+      resolverInstance.resolve("A", ResolutionLimits.depth(5));
+      fail("the cycle X<->Y is resolved and must throw a CycleException");
+    } catch (CycleException e) {
+      // expected
+    }
+    try {
+      resolverInstance.resolve("Z", ResolutionLimits.NONE);
+      fail("Z does not exist");
+    } catch (PackageNotFoundException e) {
+      // expected
+    }
+  }
+
+}
@@ -0,0 +1,324 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filename:   ClosureFingerprints.java
+ * Project:    p4
+ *
+ * A Merkle-style SHA-256 fingerprint of the dependency closure of every package. The fingerprint
+ * of a package covers its name and the fingerprints of its direct dependencies, sorted, so two
+ * fingerprints are equal exactly when the package depends on the same packages through the same
+ * edges. If any package or edge in a closure changes, the fingerprint of the closure changes,
+ * which tells a CI system which packages have to be rebuilt without resolving anything.
+ *
+ * The packages of a cycle cannot be hashed one after the other, so a cycle is hashed as a whole
+ * (its members, their edges inside the cycle and the fingerprints of the dependencies leaving it)
+ * and every member combines its own name with that hash.
+ *
+ * All fingerprints are computed in one pass over the condensation, dependencies first. After an
+ * edge is added or removed only the package and the packages depending on it are hashed again,
+ * in topological order, and the propagation stops at packages whose fingerprint did not change.
+ * Changes that create, break or touch a cycle fall back to a full pass.
+ *
+ * Reads may run concurrently, but edgeAdded, edgeRemoved and rebuild must not run at the same
+ * time as any other method, like the changes to the graph they follow.
+ */
+public class ClosureFingerprints {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private static final Comparator<byte[]> BYTES = new Comparator<byte[]>() {
+    public int compare(byte[] a, byte[] b) {
+      for (int i = 0; i < Math.min(a.length, b.length); i++) {
+        if (a[i] != b[i])
+          return (a[i] & 0xff) - (b[i] & 0xff);
+      }
+      return a.length - b.length;
+    }
+  };
+
+  private final GraphADT graph; // the dependency graph
+  private final MessageDigest sha256; // reused for every hash
+  private HashMap<String, byte[]> hashes; // fingerprint by package
+  private HashMap<String, List<String>> dependents; // reversed edges
+  private HashSet<String> cyclic; // packages that are in a cycle
+
+  /**
+   * Computes the fingerprints of every package in the graph
+   *
+   * @param graph the dependency graph
+   */
+  public ClosureFingerprints(GraphADT graph) {
+    this.graph = graph;
+    try {
+      this.sha256 = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("every JVM provides SHA-256", e);
+    }
+    rebuild();
+  }
+
+  /**
+   * This method recomputes every fingerprint from the current state of the graph
+   *
+   * @return Set<String> of the packages whose fingerprint changed, appeared or disappeared
+   */
+  public Set<String> rebuild() {
+    HashMap<String, byte[]> old = hashes;
+    IndexedGraph snapshot = IndexedGraph.of(graph);
+    Condensation condensation = snapshot.condense();
+    hashes = new HashMap<String, byte[]>(snapshot.order() * 2);
+    dependents = new HashMap<String, List<String>>(snapshot.order() * 2);
+    cyclic = new HashSet<String>();
+    for (int v = 0; v < snapshot.order(); v++)
+      dependents.put(snapshot.nameOf(v), new ArrayList<String>());
+    for (int v = 0; v < snapshot.order(); v++) {
+      for (int i = 0; i < snapshot.outDegree(v); i++)
+        dependents.get(snapshot.nameOf(snapshot.successor(v, i))).add(snapshot.nameOf(v));
+    }
+
+    for (int c = 0; c < condensation.componentCount(); c++) { // dependencies first
+      if (!condensation.isCyclic(c)) {
+        String pkg = snapshot.nameOf(condensation.member(c, 0));
+        hashes.put(pkg, hash(pkg));
+        continue;
+      }
+      List<String> members = new ArrayList<String>();
+      for (int i = 0; i < condensation.componentSize(c); i++)
+        members.add(snapshot.nameOf(condensation.member(c, i)));
+      cyclic.addAll(members);
+      byte[] component = hashCycle(members);
+      for (String member : members) {
+        sha256.update(name(member));
+        hashes.put(member, sha256.digest(component));
+      }
+    }
+
+    Set<String> changed = new HashSet<String>();
+    for (Map.Entry<String, byte[]> entry : hashes.entrySet()) {
+      if (old == null || !Arrays.equals(entry.getValue(), old.get(entry.getKey())))
+        changed.add(entry.getKey());
+    }
+    if (old != null) {
+      for (String pkg : old.keySet()) {
+        if (!hashes.containsKey(pkg))
+          changed.add(pkg);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * This method updates the fingerprints after the edge from -> to was added to the graph. Call it
+   * once the graph contains the edge. Packages the edge added to the graph are hashed as packages
+   * without dependencies first, so a dependency on a new package is also updated incrementally.
+   *
+   * @param from the dependent package
+   * @param to   the new dependency
+   * @return Set<String> of the packages whose fingerprint changed, including new packages
+   */
+  public Set<String> edgeAdded(String from, String to) {
+    if (from.equals(to))
+      return rebuild(); // a self dependency is a cycle, even on a new package
+    Set<String> added = new HashSet<String>();
+    if (!hashes.containsKey(to)) { // a new package, its closure is only itself
+      dependents.put(to, new ArrayList<String>());
+      hashes.put(to, hash(to));
+      added.add(to);
+    }
+    if (!hashes.containsKey(from)) { // hashed by propagate, which reports it as changed
+      dependents.put(from, new ArrayList<String>());
+      hashes.put(from, new byte[0]);
+    }
+    Set<String> changed;
+    if (cyclic.contains(from)) {
+      changed = rebuild(); // the cycle containing from changed
+    } else {
+      dependents.get(to).add(from);
+      changed = propagate(from, to);
+    }
+    changed.addAll(added);
+    return changed;
+  }
+
+  /**
+   * This method updates the fingerprints after the edge from -> to was removed from the graph.
+   * Call it once the graph no longer contains the edge.
+   *
+   * @param from the dependent package
+   * @param to   the removed dependency
+   * @return Set<String> of the packages whose fingerprint changed
+   */
+  public Set<String> edgeRemoved(String from, String to) {
+    if (!hashes.containsKey(from) || !hashes.containsKey(to) || cyclic.contains(from))
+      return rebuild(); // a cycle may have been broken
+    dependents.get(to).remove(from);
+    return propagate(from, null);
+  }
+
+  /**
+   * @param pkg a package
+   * @return the fingerprint of the closure of pkg as 64 hex digits, or null if pkg is unknown
+   */
+  public String getFingerprint(String pkg) {
+    byte[] hash = hashes.get(pkg);
+    if (hash == null)
+      return null;
+    char[] hex = new char[hash.length * 2];
+    for (int i = 0; i < hash.length; i++) {
+      hex[2 * i] = HEX[(hash[i] >> 4) & 0xf];
+      hex[2 * i + 1] = HEX[hash[i] & 0xf];
+    }
+    return new String(hex);
+  }
+
+  /**
+   * @return Map<String, String> of every package to its fingerprint, a copy that later changes
+   *         to the graph do not affect
+   */
+  public Map<String, String> getFingerprints() {
+    HashMap<String, String> fingerprints = new HashMap<String, String>(hashes.size() * 2);
+    for (String pkg : hashes.keySet())
+      fingerprints.put(pkg, getFingerprint(pkg));
+    return fingerprints;
+  }
+
+  /**
+   * This method compares the current fingerprints with earlier ones, e.g. from the last CI run
+   *
+   * @param before fingerprints returned by an earlier getFingerprints call
+   * @return Set<String> of the packages whose closure changed, that are new or that are gone
+   */
+  public Set<String> changedSince(Map<String, String> before) {
+    Set<String> changed = new HashSet<String>();
+    for (String pkg : hashes.keySet()) {
+      if (!getFingerprint(pkg).equals(before.get(pkg)))
+        changed.add(pkg);
+    }
+    for (String pkg : before.keySet()) {
+      if (!hashes.containsKey(pkg))
+        changed.add(pkg);
+    }
+    return changed;
+  }
+
+  /**
+   * Helper method hashing a package again and then the packages depending on it, in topological
+   * order, until no fingerprint changes any more
+   *
+   * @param origin the package whose dependency list changed
+   * @param added  the dependency that was added, null if one was removed
+   * @return Set<String> of the packages whose fingerprint changed
+   */
+  private Set<String> propagate(String origin, String added) {
+    // every package that may change: the origin and everything depending on it
+    Set<String> affected = new HashSet<String>();
+    ArrayDeque<String> queue = new ArrayDeque<String>();
+    affected.add(origin);
+    queue.add(origin);
+    while (!queue.isEmpty()) {
+      for (String dependent : dependents.get(queue.poll())) {
+        if (affected.add(dependent))
+          queue.add(dependent);
+      }
+    }
+    if (added != null && affected.contains(added))
+      return rebuild(); // the new edge closes a cycle
+    for (String pkg : affected) {
+      if (cyclic.contains(pkg))
+        return rebuild(); // a cycle depends on the origin and is hashed as a whole
+    }
+
+    // Kahn's algorithm over the affected packages, dependencies first
+    HashMap<String, Integer> pending = new HashMap<String, Integer>(affected.size() * 2);
+    for (String pkg : affected) {
+      int count = 0;
+      for (String dependency : graph.getAdjacentVerticesOf(pkg)) {
+        if (affected.contains(dependency))
+          count++;
+      }
+      pending.put(pkg, count);
+      if (count == 0)
+        queue.add(pkg);
+    }
+    Set<String> changed = new HashSet<String>();
+    while (!queue.isEmpty()) {
+      String pkg = queue.poll();
+      boolean dirty = pkg.equals(origin);
+      for (String dependency : graph.getAdjacentVerticesOf(pkg))
+        dirty |= changed.contains(dependency);
+      if (dirty) {
+        byte[] hash = hash(pkg);
+        if (!Arrays.equals(hash, hashes.put(pkg, hash)))
+          changed.add(pkg);
+      }
+      for (String dependent : dependents.get(pkg)) {
+        if (pending.put(dependent, pending.get(dependent) - 1) == 1)
+          queue.add(dependent);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Helper method hashing a package that is not in a cycle from its dependencies
+   */
+  private byte[] hash(String pkg) {
+    List<byte[]> dependencies = new ArrayList<byte[]>();
+    for (String dependency : graph.getAdjacentVerticesOf(pkg))
+      dependencies.add(hashes.get(dependency));
+    Collections.sort(dependencies, BYTES);
+    sha256.update(name(pkg));
+    for (byte[] dependency : dependencies)
+      sha256.update(dependency);
+    return sha256.digest();
+  }
+
+  /**
+   * Helper method hashing a cycle from its members, their edges and the dependencies leaving it
+   */
+  private byte[] hashCycle(List<String> members) {
+    Set<String> inside = new HashSet<String>(members);
+    Collections.sort(members);
+    List<byte[]> parts = new ArrayList<byte[]>();
+    for (String member : members) {
+      List<byte[]> edges = new ArrayList<byte[]>();
+      for (String dependency : graph.getAdjacentVerticesOf(member))
+        edges.add(inside.contains(dependency) ? name(dependency) : hashes.get(dependency));
+      Collections.sort(edges, BYTES);
+      sha256.update(name(member));
+      for (byte[] edge : edges)
+        sha256.update(edge);
+      parts.add(sha256.digest());
+    }
+    for (byte[] part : parts)
+      sha256.update(part);
+    return sha256.digest();
+  }
+
+  /**
+   * Helper method encoding a name so that it cannot be confused with a hash or another name
+   */
+  private static byte[] name(String pkg) {
+    byte[] utf8 = pkg.getBytes(StandardCharsets.UTF_8);
+    byte[] prefixed = new byte[utf8.length + 5];
+    prefixed[0] = 'n';
+    prefixed[1] = (byte) (utf8.length >>> 24);
+    prefixed[2] = (byte) (utf8.length >>> 16);
+    prefixed[3] = (byte) (utf8.length >>> 8);
+    prefixed[4] = (byte) utf8.length;
+    System.arraycopy(utf8, 0, prefixed, 5, utf8.length);
+    return prefixed;
+  }
+
+}
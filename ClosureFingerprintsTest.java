@@ -0,0 +1,181 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the ClosureFingerprints
+ */
+class ClosureFingerprintsTest {
+  private Graph graphInstance; // the dependency graph used by every test
+
+  /**
+   * This method runs before every test method and builds the graph
+   * A->[B, C], B->[D], C->[D], E->[F], F->[E], G->[E]
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new Graph();
+    graphInstance.addEdge("A", "B");
+    graphInstance.addEdge("A", "C");
+    graphInstance.addEdge("B", "D");
+    graphInstance.addEdge("C", "D");
+    graphInstance.addEdge("E", "F");
+    graphInstance.addEdge("F", "E");
+    graphInstance.addEdge("G", "E");
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    graphInstance = null;
+  }
+
+  /**
+   * This method checks that fingerprints depend on the closure only, not on how the graph was built
+   */
+  @Test
+  public void test001_fingerprints_describe_the_closure() {
+    Graph other = new Graph();
+    other.addEdge("G", "E");
+    other.addEdge("F", "E");
+    other.addEdge("E", "F");
+    other.addEdge("C", "D");
+    other.addEdge("A", "C");
+    other.addEdge("B", "D");
+    other.addEdge("A", "B");
+    Map<String, String> expected = new ClosureFingerprints(graphInstance).getFingerprints();
+    if (!new ClosureFingerprints(other).getFingerprints().equals(expected))
+      fail("the same graph built in another order must have the same fingerprints");
+    if (expected.get("B").equals(expected.get("C")))
+      fail("B and C have the same dependencies but are different packages");
+    if (expected.get("E").equals(expected.get("F")))
+      fail("the members of a cycle must have different fingerprints");
+    if (expected.get("A").length() != 64)
+      fail("a fingerprint is a SHA-256 hash in hex, but got " + expected.get("A"));
+  }
+
+  /**
+   * This method checks which fingerprints change when edges are added and removed
+   */
+  @Test
+  public void test002_edge_changes_update_the_dependents() {
+    ClosureFingerprints fingerprints = new ClosureFingerprints(graphInstance);
+    Map<String, String> before = fingerprints.getFingerprints();
+
+    graphInstance.addEdge("C", "E");
+    Set<String> changed = fingerprints.edgeAdded("C", "E");
+    if (!changed.equals(new HashSet<String>(Arrays.asList("A", "C"))))
+      fail("C->E changes the closures of A and C, but changed = " + changed);
+    if (!fingerprints.changedSince(before).equals(changed))
+      fail("changedSince must find the same packages, but found "
+          + fingerprints.changedSince(before));
+
+    graphInstance.removeEdge("C", "E");
+    changed = fingerprints.edgeRemoved("C", "E");
+    if (!changed.equals(new HashSet<String>(Arrays.asList("A", "C"))))
+      fail("removing C->E changes A and C back, but changed = " + changed);
+    if (!fingerprints.getFingerprints().equals(before))
+      fail("removing the edge again must restore every fingerprint");
+
+    graphInstance.addEdge("D", "A"); // closes the cycle A->B->D->A
+    changed = fingerprints.edgeAdded("D", "A");
+    if (!changed.equals(new HashSet<String>(Arrays.asList("A", "B", "C", "D"))))
+      fail("D->A changes A, B, C and D, but changed = " + changed);
+    if (!new ClosureFingerprints(graphInstance).getFingerprints()
+        .equals(fingerprints.getFingerprints()))
+      fail("updated fingerprints must equal freshly computed ones");
+  }
+
+  /**
+   * This method checks on a random DAG that incremental updates give the same fingerprints as a
+   * full computation and report exactly the packages that changed
+   */
+  @Test
+  public void test003_random_updates_match_full_computation() {
+    Graph random = new Graph();
+    Random rnd = new Random(41);
+    for (int i = 0; i < 300; i++) {
+      random.addVertex("p" + i);
+      for (int d = 0; d < 3 && i + 1 < 300; d++)
+        random.addEdge("p" + i, "p" + (i + 1 + rnd.nextInt(Math.min(40, 299 - i))));
+    }
+    ClosureFingerprints fingerprints = new ClosureFingerprints(random);
+    for (int round = 0; round < 200; round++) {
+      Map<String, String> before = fingerprints.getFingerprints();
+      int from = rnd.nextInt(299);
+      String pkg = "p" + from;
+      String dependency = "p" + (from + 1 + rnd.nextInt(299 - from));
+      Set<String> changed;
+      if (random.getAdjacentVerticesOf(pkg).contains(dependency)) {
+        random.removeEdge(pkg, dependency);
+        changed = fingerprints.edgeRemoved(pkg, dependency);
+      } else {
+        random.addEdge(pkg, dependency);
+        changed = fingerprints.edgeAdded(pkg, dependency);
+      }
+      Map<String, String> expected = new ClosureFingerprints(random).getFingerprints();
+      if (!fingerprints.getFingerprints().equals(expected))
+        fail("round " + round + ": fingerprints differ from a full computation");
+      if (!changed.equals(fingerprints.changedSince(before)))
+        fail("round " + round + ": reported " + changed + " but "
+            + fingerprints.changedSince(before) + " changed");
+    }
+  }
+
+  /**
+   * This method checks that edges to and from new packages are handled incrementally and that
+   * the first change through a PackageManager only reports the packages it affects
+   */
+  @Test
+  public void test004_new_packages_and_first_change() throws Exception {
+    ClosureFingerprints fingerprints = new ClosureFingerprints(graphInstance);
+    graphInstance.addEdge("D", "N"); // N is new
+    Set<String> changed = fingerprints.edgeAdded("D", "N");
+    if (!changed.equals(new HashSet<String>(Arrays.asList("A", "B", "C", "D", "N"))))
+      fail("D->N changes N, D and everything depending on D, but changed = " + changed);
+    graphInstance.addEdge("M", "A"); // M is new
+    changed = fingerprints.edgeAdded("M", "A");
+    if (!changed.equals(new HashSet<String>(Arrays.asList("M"))))
+      fail("M->A only adds M, but changed = " + changed);
+    if (!new ClosureFingerprints(graphInstance).getFingerprints()
+        .equals(fingerprints.getFingerprints()))
+      fail("updated fingerprints must equal freshly computed ones");
+
+    PackageManager manager = new PackageManager(graphInstance);
+    changed = manager.addDependency("B", "G");
+    if (!changed.equals(new HashSet<String>(Arrays.asList("A", "B", "M"))))
+      fail("the first change must only report A, B and M, but changed = " + changed);
+    changed = manager.removeDependency("B", "G");
+    if (!changed.equals(new HashSet<String>(Arrays.asList("A", "B", "M"))))
+      fail("removing B->G must report A, B and M, but changed = " + changed);
+  }
+
+  /**
+   * This method checks that a package depending on itself is hashed as a cycle, also when the
+   * package is new
+   */
+  @Test
+  public void test005_self_dependency() throws Exception {
+    PackageManager manager = new PackageManager(graphInstance);
+    manager.getClosureFingerprints(); // compute them before the change
+    Set<String> changed = manager.addDependency("N", "N");
+    if (!changed.equals(new HashSet<String>(Arrays.asList("N"))))
+      fail("N->N only adds N, but changed = " + changed);
+    changed = manager.addDependency("D", "D");
+    if (!changed.equals(new HashSet<String>(Arrays.asList("A", "B", "C", "D"))))
+      fail("D->D changes D and everything depending on D, but changed = " + changed);
+    if (manager.getClosureFingerprint("N") == null
+        || !new ClosureFingerprints(graphInstance).getFingerprints()
+            .equals(manager.getClosureFingerprints()))
+      fail("updated fingerprints must equal freshly computed ones");
+  }
+
+}
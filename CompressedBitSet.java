@@ -0,0 +1,377 @@
+import java.util.Arrays;
+
+/**
+ * Filename:   CompressedBitSet.java
+ * Project:    p4
+ *
+ * A compressed set of non-negative ints in the style of a roaring bitmap. The values are split
+ * into chunks of 65536 by their upper 16 bits. A chunk with few values stores them as a sorted
+ * char array, a dense chunk switches to a 8 KB bitmap. Sparse closures stay small while dense ones
+ * cost one bit per package.
+ *
+ * This class is not thread safe.
+ */
+public class CompressedBitSet {
+
+  private static final int ARRAY_LIMIT = 4096; // max values in an array chunk, 4096 chars = 8 KB
+  private static final int BITMAP_WORDS = 1024; // 65536 bits
+
+  private char[] keys; // upper 16 bits of each chunk, sorted
+  private Object[] chunks; // char[] (sorted values) or long[] (bitmap) per chunk
+  private int[] counts; // number of values per chunk
+  private int size; // number of chunks
+
+  /**
+   * Creates an empty set
+   */
+  public CompressedBitSet() {
+    keys = new char[4];
+    chunks = new Object[4];
+    counts = new int[4];
+    size = 0;
+  }
+
+  /**
+   * This method returns a deep copy of the set
+   *
+   * @return CompressedBitSet with the same values
+   */
+  public CompressedBitSet copy() {
+    CompressedBitSet copy = new CompressedBitSet();
+    copy.keys = Arrays.copyOf(keys, Math.max(size, 1));
+    copy.counts = Arrays.copyOf(counts, Math.max(size, 1));
+    copy.chunks = new Object[Math.max(size, 1)];
+    for (int i = 0; i < size; i++)
+      copy.chunks[i] = copyChunk(chunks[i]);
+    copy.size = size;
+    return copy;
+  }
+
+  /**
+   * Helper method to copy the storage of one chunk
+   */
+  private static Object copyChunk(Object chunk) {
+    if (chunk instanceof long[])
+      return ((long[]) chunk).clone();
+    return ((char[]) chunk).clone();
+  }
+
+  /**
+   * Helper method to find the position of a chunk
+   *
+   * @return the index of the chunk, or -(insertion point) - 1 if it does not exist
+   */
+  private int find(char key) {
+    int lo = 0;
+    int hi = size - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (keys[mid] < key)
+        lo = mid + 1;
+      else if (keys[mid] > key)
+        hi = mid - 1;
+      else
+        return mid;
+    }
+    return -(lo + 1);
+  }
+
+  /**
+   * Helper method to find or create the chunk for a key
+   *
+   * @return the index of the chunk
+   */
+  private int chunkFor(char key) {
+    int i = find(key);
+    if (i >= 0)
+      return i;
+    i = -i - 1;
+    if (size == keys.length) {
+      keys = Arrays.copyOf(keys, size * 2);
+      chunks = Arrays.copyOf(chunks, size * 2);
+      counts = Arrays.copyOf(counts, size * 2);
+    }
+    System.arraycopy(keys, i, keys, i + 1, size - i);
+    System.arraycopy(chunks, i, chunks, i + 1, size - i);
+    System.arraycopy(counts, i, counts, i + 1, size - i);
+    keys[i] = key;
+    chunks[i] = new char[4];
+    counts[i] = 0;
+    size++;
+    return i;
+  }
+
+  /**
+   * This method adds a value to the set
+   *
+   * @param value a non-negative int
+   */
+  public void add(int value) {
+    int i = chunkFor((char) (value >>> 16));
+    char low = (char) value;
+    if (chunks[i] instanceof long[]) {
+      long[] bitmap = (long[]) chunks[i];
+      long mask = 1L << low;
+      if ((bitmap[low >>> 6] & mask) == 0) {
+        bitmap[low >>> 6] |= mask;
+        counts[i]++;
+      }
+      return;
+    }
+    char[] values = (char[]) chunks[i];
+    int pos = Arrays.binarySearch(values, 0, counts[i], low);
+    if (pos >= 0)
+      return; // already present
+    pos = -pos - 1;
+    if (counts[i] == ARRAY_LIMIT) { // the chunk became dense
+      long[] bitmap = toBitmap(values, counts[i]);
+      bitmap[low >>> 6] |= 1L << low;
+      chunks[i] = bitmap;
+      counts[i]++;
+      return;
+    }
+    if (counts[i] == values.length)
+      values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, values.length * 2));
+    System.arraycopy(values, pos, values, pos + 1, counts[i] - pos);
+    values[pos] = low;
+    chunks[i] = values;
+    counts[i]++;
+  }
+
+  /**
+   * This method adds every value in [from, to) to the set
+   *
+   * @param from the first value, inclusive
+   * @param to   the last value, exclusive
+   */
+  public void addRange(int from, int to) {
+    while (from < to) {
+      int chunkEnd = Math.min(to, ((from >>> 16) + 1) << 16); // stay inside one chunk
+      if (chunkEnd - from <= 64) { // short ranges are cheaper one by one
+        for (int v = from; v < chunkEnd; v++)
+          add(v);
+      } else {
+        int i = chunkFor((char) (from >>> 16));
+        long[] bitmap = chunks[i] instanceof long[] ? (long[]) chunks[i]
+            : toBitmap((char[]) chunks[i], counts[i]);
+        int lo = from & 0xFFFF;
+        int hi = ((chunkEnd - 1) & 0xFFFF) + 1;
+        for (int w = lo >>> 6; w <= (hi - 1) >>> 6; w++) {
+          long mask = -1L;
+          if (w == lo >>> 6)
+            mask &= -1L << lo;
+          if (w == (hi - 1) >>> 6)
+            mask &= -1L >>> (64 - (hi - (w << 6)));
+          bitmap[w] |= mask;
+        }
+        chunks[i] = bitmap;
+        counts[i] = cardinality(bitmap);
+        shrink(i);
+      }
+      from = chunkEnd;
+    }
+  }
+
+  /**
+   * This method adds every value of another set to this set
+   *
+   * @param other the set to be merged into this one, it is not modified
+   */
+  public void or(CompressedBitSet other) {
+    int total = size + other.size;
+    char[] newKeys = new char[Math.max(total, 1)];
+    Object[] newChunks = new Object[Math.max(total, 1)];
+    int[] newCounts = new int[Math.max(total, 1)];
+    int a = 0;
+    int b = 0;
+    int n = 0;
+    while (a < size || b < other.size) { // merge the sorted chunk lists
+      if (b == other.size || (a < size && keys[a] < other.keys[b])) {
+        newKeys[n] = keys[a];
+        newChunks[n] = chunks[a];
+        newCounts[n++] = counts[a++];
+      } else if (a == size || other.keys[b] < keys[a]) {
+        newKeys[n] = other.keys[b];
+        newChunks[n] = copyChunk(other.chunks[b]);
+        newCounts[n++] = other.counts[b++];
+      } else {
+        newKeys[n] = keys[a];
+        newChunks[n] = union(chunks[a], counts[a], other.chunks[b], other.counts[b]);
+        newCounts[n] = count(newChunks[n]);
+        n++;
+        a++;
+        b++;
+      }
+    }
+    keys = newKeys;
+    chunks = newChunks;
+    counts = newCounts;
+    size = n;
+  }
+
+  /**
+   * Helper method that unions two chunks, reusing the first one when it is a bitmap
+   */
+  private static Object union(Object mine, int myCount, Object theirs, int theirCount) {
+    if (mine instanceof long[]) {
+      long[] bitmap = (long[]) mine;
+      orInto(bitmap, theirs, theirCount);
+      return bitmap;
+    }
+    if (theirs instanceof long[]) {
+      long[] bitmap = ((long[]) theirs).clone();
+      orInto(bitmap, mine, myCount);
+      return bitmap;
+    }
+    char[] x = (char[]) mine;
+    char[] y = (char[]) theirs;
+    if (myCount + theirCount > ARRAY_LIMIT) { // the union may be dense
+      long[] bitmap = toBitmap(x, myCount);
+      orInto(bitmap, y, theirCount);
+      return cardinality(bitmap) > ARRAY_LIMIT ? bitmap : toArray(bitmap);
+    }
+    char[] merged = new char[myCount + theirCount];
+    int i = 0;
+    int j = 0;
+    int n = 0;
+    while (i < myCount && j < theirCount) {
+      if (x[i] < y[j])
+        merged[n++] = x[i++];
+      else if (x[i] > y[j])
+        merged[n++] = y[j++];
+      else {
+        merged[n++] = x[i++];
+        j++;
+      }
+    }
+    while (i < myCount)
+      merged[n++] = x[i++];
+    while (j < theirCount)
+      merged[n++] = y[j++];
+    return n == merged.length ? merged : Arrays.copyOf(merged, Math.max(n, 1));
+  }
+
+  /**
+   * Helper method to set the bits of a chunk in a bitmap
+   */
+  private static void orInto(long[] bitmap, Object chunk, int count) {
+    if (chunk instanceof long[]) {
+      long[] other = (long[]) chunk;
+      for (int w = 0; w < BITMAP_WORDS; w++)
+        bitmap[w] |= other[w];
+    } else {
+      char[] values = (char[]) chunk;
+      for (int i = 0; i < count; i++)
+        bitmap[values[i] >>> 6] |= 1L << values[i];
+    }
+  }
+
+  /**
+   * Helper method to convert an array chunk to a bitmap
+   */
+  private static long[] toBitmap(char[] values, int count) {
+    long[] bitmap = new long[BITMAP_WORDS];
+    orInto(bitmap, values, count);
+    return bitmap;
+  }
+
+  /**
+   * Helper method to convert a sparse bitmap back to an array chunk
+   */
+  private static char[] toArray(long[] bitmap) {
+    char[] values = new char[Math.max(cardinality(bitmap), 1)];
+    int n = 0;
+    for (int w = 0; w < BITMAP_WORDS; w++) {
+      long word = bitmap[w];
+      while (word != 0) {
+        values[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Helper method to convert chunk i back to an array if it is a sparse bitmap
+   */
+  private void shrink(int i) {
+    if (chunks[i] instanceof long[] && counts[i] <= ARRAY_LIMIT)
+      chunks[i] = toArray((long[]) chunks[i]);
+  }
+
+  /**
+   * Helper method counting the values of a chunk produced by union
+   */
+  private static int count(Object chunk) {
+    if (chunk instanceof long[])
+      return cardinality((long[]) chunk);
+    return ((char[]) chunk).length;
+  }
+
+  /**
+   * Helper method counting the set bits of a bitmap
+   */
+  private static int cardinality(long[] bitmap) {
+    int count = 0;
+    for (long word : bitmap)
+      count += Long.bitCount(word);
+    return count;
+  }
+
+  /**
+   * This method checks whether a value is in the set
+   *
+   * @param value a non-negative int
+   * @return true if the value was added
+   */
+  public boolean contains(int value) {
+    int i = find((char) (value >>> 16));
+    if (i < 0)
+      return false;
+    char low = (char) value;
+    if (chunks[i] instanceof long[])
+      return (((long[]) chunks[i])[low >>> 6] & (1L << low)) != 0;
+    return Arrays.binarySearch((char[]) chunks[i], 0, counts[i], low) >= 0;
+  }
+
+  /**
+   * This method returns the number of values in the set
+   *
+   * @return the cardinality of the set
+   */
+  public int cardinality() {
+    int total = 0;
+    for (int i = 0; i < size; i++)
+      total += counts[i];
+    return total;
+  }
+
+  /**
+   * This method returns the values of the set in increasing order
+   *
+   * @return int[] of all values
+   */
+  public int[] toArray() {
+    int[] values = new int[cardinality()];
+    int n = 0;
+    for (int i = 0; i < size; i++) {
+      int high = keys[i] << 16;
+      if (chunks[i] instanceof long[]) {
+        long[] bitmap = (long[]) chunks[i];
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+          long word = bitmap[w];
+          while (word != 0) {
+            values[n++] = high | ((w << 6) + Long.numberOfTrailingZeros(word));
+            word &= word - 1;
+          }
+        }
+      } else {
+        char[] chunk = (char[]) chunks[i];
+        for (int k = 0; k < counts[i]; k++)
+          values[n++] = high | chunk[k];
+      }
+    }
+    return values;
+  }
+
+}
@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the CompressedBitSet
+ */
+class CompressedBitSetTest {
+
+  /**
+   * Helper method that compares a CompressedBitSet against a java.util.BitSet
+   */
+  private void assertSameValues(BitSet expected, CompressedBitSet actual) {
+    if (expected.cardinality() != actual.cardinality())
+      fail("cardinality should be " + expected.cardinality() + " and not " + actual.cardinality());
+    if (!Arrays.equals(expected.stream().toArray(), actual.toArray()))
+      fail("the sets contain different values");
+  }
+
+  /**
+   * This method checks add and contains across sparse and dense chunks
+   */
+  @Test
+  public void test001_add_and_contains() {
+    CompressedBitSet set = new CompressedBitSet();
+    BitSet expected = new BitSet();
+    Random random = new Random(1);
+    for (int i = 0; i < 20000; i++) { // dense in the first chunk, sparse in the others
+      int value = i % 2 == 0 ? random.nextInt(65536) : random.nextInt(1 << 22);
+      set.add(value);
+      expected.set(value);
+    }
+    assertSameValues(expected, set);
+    if (set.contains(1 << 23) || !set.contains(expected.nextSetBit(70000)))
+      fail("contains does not match the added values");
+  }
+
+  /**
+   * This method checks ranges which start and end inside chunks
+   */
+  @Test
+  public void test002_add_range() {
+    CompressedBitSet set = new CompressedBitSet();
+    BitSet expected = new BitSet();
+    set.addRange(10, 20);
+    expected.set(10, 20);
+    set.addRange(65000, 140000);
+    expected.set(65000, 140000);
+    set.addRange(200000, 200100);
+    expected.set(200000, 200100);
+    assertSameValues(expected, set);
+  }
+
+  /**
+   * This method checks that or merges two sets without changing the argument
+   */
+  @Test
+  public void test003_or_and_copy() {
+    Random random = new Random(2);
+    CompressedBitSet a = new CompressedBitSet();
+    CompressedBitSet b = new CompressedBitSet();
+    BitSet expectedA = new BitSet();
+    BitSet expectedB = new BitSet();
+    for (int i = 0; i < 10000; i++) {
+      int x = random.nextInt(300000);
+      int y = random.nextInt(100000);
+      a.add(x);
+      expectedA.set(x);
+      b.add(y);
+      expectedB.set(y);
+    }
+    CompressedBitSet copy = a.copy();
+    a.or(b);
+    expectedA.or(expectedB);
+    assertSameValues(expectedA, a);
+    assertSameValues(expectedB, b);
+    copy.add(299999);
+    if (a.contains(299999) != expectedA.get(299999))
+      fail("the copy must not share storage with the original");
+  }
+
+}
@@ -0,0 +1,164 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the CompressedGraph implementation
+ */
+class CompressedGraphTest {
+  private CompressedGraph graphInstance; // the instance of the graph which will be used for testing
+  private Set<String> verticeTest; // the instance of a set used for checking the vertex list
+
+  /**
+   * This method runs before every test method
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new CompressedGraph();
+    verticeTest = new HashSet<String>();
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    graphInstance = null;
+    verticeTest = null;
+  }
+
+  /**
+   * Helper method to fill a graph instance with vertices and edges, same as in GraphTest
+   */
+  private void graph_filler(GraphADT graph) {
+    graph.addEdge("A", "B");
+    graph.addEdge("A", "C");
+    graph.addEdge("C", "D");
+    graph.addEdge("D", "E");
+    graph.addVertex("F");
+    graph.addEdge("D", "G");
+    graph.addEdge("E", "G");
+    graph.addVertex("H");
+  }
+
+  /**
+   * This method checks the adjacency lists, order and size after inserting edges
+   */
+  @Test
+  public void test001_insert_edges_and_check_adjacent_list_of_vertices() {
+    graph_filler(graphInstance);
+    if (!graphInstance.getAdjacentVerticesOf("D").equals(Arrays.asList("E", "G")))
+      fail("Adjacent list of D is supposed to be [E, G] and not "
+          + graphInstance.getAdjacentVerticesOf("D"));
+    graphInstance.addEdge("A", "B"); // duplicate edge is ignored
+    if (graphInstance.order() != 8 || graphInstance.size() != 6)
+      fail("graph should have order 8 and size 6, but order = " + graphInstance.order()
+          + " and size = " + graphInstance.size());
+  }
+
+  /**
+   * This method checks that removing a vertex removes the edges pointing to it and its id is
+   * reused safely
+   */
+  @Test
+  public void test002_removeVertex_removes_the_right_vertex() {
+    graph_filler(graphInstance);
+    graphInstance.removeVertex("G");
+    if (graphInstance.size() != 4 || !graphInstance.getAdjacentVerticesOf("E").isEmpty())
+      fail("the edges to G must be removed");
+    graphInstance.addEdge("H", "Z"); // Z takes the id of G
+    verticeTest.addAll(Arrays.asList("A", "B", "C", "D", "E", "F", "H", "Z"));
+    if (!graphInstance.getAllVertices().equals(verticeTest))
+      fail("Vertex list of is supposed to be: " + verticeTest + " and not "
+          + graphInstance.getAllVertices());
+    if (!graphInstance.getAdjacentVerticesOf("D").equals(Arrays.asList("E")))
+      fail("D must not pick up an edge to Z");
+  }
+
+  /**
+   * This method checks that identical adjacency lists are stored once
+   */
+  @Test
+  public void test003_identical_lists_are_deduplicated() {
+    for (int i = 0; i < 100; i++) {
+      graphInstance.addEdge("app" + i, "log");
+      graphInstance.addEdge("app" + i, "json");
+    }
+    // one shared list for the 100 apps and the empty list of log and json
+    if (graphInstance.distinctLists() != 2)
+      fail("expected 2 distinct lists but there are " + graphInstance.distinctLists());
+    graphInstance.removeEdge("app0", "json");
+    if (graphInstance.distinctLists() != 3 || graphInstance.size() != 199)
+      fail("app0 must get its own list after the edge removal");
+  }
+
+  /**
+   * This method checks that the PackageManager resolves the same order on both storages
+   */
+  @Test
+  public void test004_package_manager_on_compressed_graph() throws Exception {
+    Graph graph = new Graph();
+    graph_filler(graph);
+    graph_filler(graphInstance);
+    if (!new PackageManager(graphInstance).getInstallationOrder("A")
+        .equals(new PackageManager(graph).getInstallationOrder("A")))
+      fail("both storages must produce the same installation order");
+  }
+
+  /**
+   * This method checks that adding a package's dependencies at once gives the same graph as
+   * adding them one by one
+   */
+  @Test
+  public void test005_addEdges_matches_addEdge() {
+    CompressedGraph single = new CompressedGraph();
+    for (int i = 0; i < 500; i++)
+      single.addEdge("root", "dep" + (i * 7 % 500));
+    single.addEdge("root", "dep3");
+    graphInstance.addEdge("root", "dep0");
+    List<String> dependencies = new ArrayList<String>();
+    for (int i = 0; i < 500; i++)
+      dependencies.add("dep" + (i * 7 % 500));
+    dependencies.add("dep3"); // duplicate in the batch
+    graphInstance.addEdges("root", dependencies);
+    if (graphInstance.size() != 500 || graphInstance.order() != 501)
+      fail("root has 500 distinct dependencies, but size = " + graphInstance.size()
+          + " and order = " + graphInstance.order());
+    if (!new HashSet<String>(graphInstance.getAdjacentVerticesOf("root"))
+        .equals(new HashSet<String>(single.getAdjacentVerticesOf("root"))))
+      fail("addEdges and addEdge must give the same neighbors");
+    graphInstance.addEdges("root", Arrays.asList("dep1", "dep2"));
+    if (graphInstance.size() != 500)
+      fail("existing edges must not be added again");
+  }
+
+  /**
+   * This method checks that decoding into a collection gives the neighbors of
+   * getAdjacentVerticesOf, and that Graph gets the same methods from GraphADT
+   */
+  @Test
+  public void test006_addAdjacentVerticesTo_and_the_defaults() {
+    graph_filler(graphInstance);
+    List<String> neighbors = new ArrayList<String>();
+    neighbors.add("X"); // kept, the neighbors are added after it
+    if (!graphInstance.addAdjacentVerticesTo("D", neighbors)
+        || !neighbors.equals(Arrays.asList("X", "E", "G")))
+      fail("the neighbors of D must be added after X, not " + neighbors);
+    if (graphInstance.addAdjacentVerticesTo("Z", neighbors) || neighbors.size() != 3)
+      fail("Z is not in the graph and must not change the collection");
+
+    Graph graph = new Graph();
+    graph.addEdges("A", Arrays.asList("B", null, "C", "B"));
+    neighbors.clear();
+    if (!graph.addAdjacentVerticesTo("A", neighbors)
+        || !neighbors.equals(Arrays.asList("B", "C")) || graph.size() != 2)
+      fail("Graph must add the distinct edges A->B and A->C, not " + neighbors);
+  }
+
+}
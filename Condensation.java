@@ -0,0 +1,167 @@
+import java.util.Arrays;
+
+/**
+ * Filename:   Condensation.java
+ * Project:    p4
+ *
+ * The strongly connected components of an IndexedGraph and the DAG between them. Every cycle of
+ * packages collapses into a single component, so algorithms that need a DAG can run on any
+ * dependency graph.
+ *
+ * Components are numbered in reverse topological order: if a package in component c1 depends on a
+ * package in component c2 (c1 != c2) then c1 > c2. Iterating components from 0 upwards therefore
+ * visits dependencies before the packages that depend on them.
+ */
+public class Condensation {
+
+  private final IndexedGraph graph; // the graph that was condensed
+  private final int[] component; // component id by vertex id
+  // members of c are members[memberOffsets[c] .. memberOffsets[c+1]-1]
+  private final int[] memberOffsets;
+  private final int[] members; // vertex ids grouped by component
+  private final boolean[] cyclic; // true if the component contains a cycle
+  private final IndexedGraph dag; // edges between components, without duplicates or self loops
+
+  /**
+   * Creates the condensation from a component assignment
+   *
+   * @param graph      the condensed graph
+   * @param component  component id by vertex id, in reverse topological order
+   * @param components number of components
+   */
+  Condensation(IndexedGraph graph, int[] component, int components) {
+    this.graph = graph;
+    this.component = component;
+    int n = graph.order();
+
+    // group the vertices by component
+    memberOffsets = new int[components + 1];
+    for (int v = 0; v < n; v++)
+      memberOffsets[component[v] + 1]++;
+    for (int c = 0; c < components; c++)
+      memberOffsets[c + 1] += memberOffsets[c];
+    members = new int[n];
+    int[] fill = Arrays.copyOf(memberOffsets, components);
+    for (int v = 0; v < n; v++)
+      members[fill[component[v]]++] = v;
+
+    // build the component DAG, using a per-component marker to drop duplicate edges
+    cyclic = new boolean[components];
+    int[] lastSeen = new int[components];
+    Arrays.fill(lastSeen, -1);
+    int[] offsets = new int[components + 1];
+    int[] targets = new int[graph.size()];
+    int edges = 0;
+    for (int c = 0; c < components; c++) {
+      offsets[c] = edges;
+      cyclic[c] = memberOffsets[c + 1] - memberOffsets[c] > 1;
+      for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+        int v = members[m];
+        for (int i = 0; i < graph.outDegree(v); i++) {
+          int d = component[graph.successor(v, i)];
+          if (d == c) { // edge inside the component, a self loop makes it cyclic
+            cyclic[c] = true;
+          } else if (lastSeen[d] != c) {
+            lastSeen[d] = c;
+            targets[edges++] = d;
+          }
+        }
+      }
+    }
+    offsets[components] = edges;
+    dag = new IndexedGraph(null, null, offsets, Arrays.copyOf(targets, edges));
+  }
+
+  /**
+   * This method returns the graph that was condensed
+   *
+   * @return the condensed IndexedGraph
+   */
+  public IndexedGraph graph() {
+    return graph;
+  }
+
+  /**
+   * This method returns the number of components
+   *
+   * @return number of strongly connected components
+   */
+  public int componentCount() {
+    return memberOffsets.length - 1;
+  }
+
+  /**
+   * This method returns the component of a vertex
+   *
+   * @param v the vertex id
+   * @return the component id of v
+   */
+  public int component(int v) {
+    return component[v];
+  }
+
+  /**
+   * This method returns the number of vertices in a component
+   *
+   * @param c the component id
+   * @return number of members of c
+   */
+  public int componentSize(int c) {
+    return memberOffsets[c + 1] - memberOffsets[c];
+  }
+
+  /**
+   * This method returns the position of the first member of a component in the member order.
+   * Members are grouped by component, so component c occupies the positions memberOffset(c) to
+   * memberOffset(c + 1) - 1.
+   *
+   * @param c the component id, componentCount() is allowed for the end of the last component
+   * @return the position of the first member of c
+   */
+  public int memberOffset(int c) {
+    return memberOffsets[c];
+  }
+
+  /**
+   * This method returns the i-th member of a component
+   *
+   * @param c the component id
+   * @param i the position in the member list, 0 <= i < componentSize(c)
+   * @return the vertex id of the member
+   */
+  public int member(int c, int i) {
+    return members[memberOffsets[c] + i];
+  }
+
+  /**
+   * This method returns the vertex at a position of the member order
+   *
+   * @param position the position, 0 <= position < graph().order()
+   * @return the vertex id at that position
+   */
+  public int memberAt(int position) {
+    return members[position];
+  }
+
+  /**
+   * This method checks whether a component contains a cycle, i.e. it has more than one member or
+   * a package that depends on itself
+   *
+   * @param c the component id
+   * @return true if the packages of c cannot be installed in any order
+   */
+  public boolean isCyclic(int c) {
+    return cyclic[c];
+  }
+
+  /**
+   * This method returns the DAG between the components. Vertex ids of the DAG are component ids
+   * and the DAG has no vertex names.
+   *
+   * @return IndexedGraph of the components
+   */
+  public IndexedGraph dag() {
+    return dag;
+  }
+
+}
@@ -0,0 +1,154 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filename:   CriticalPathAnalysis.java
+ * Project:    p4
+ *
+ * Estimates how long installing a package takes from the install duration of every package. A
+ * package can start once all of its dependencies are installed, so with enough workers the
+ * installation takes as long as the heaviest chain of dependencies, the critical path:
+ *
+ * - earliest finish of p = duration of p + the latest earliest finish of its dependencies
+ * - latest finish of p   = the earliest latest start (latest finish - duration) of the packages
+ *                          in the closure that depend on p, the makespan for the target itself
+ * - slack of p           = latest finish - earliest finish
+ *
+ * Both passes walk one topological order of the closure, forwards and backwards, so an analysis
+ * is O(V + E) in the size of the closure of the package.
+ */
+public class CriticalPathAnalysis {
+
+  private final GraphADT graph; // the dependency graph
+  private final Map<String, Long> durations; // install duration by package
+  private final long defaultDuration; // duration of packages missing from durations
+
+  /**
+   * Creates an analysis over a dependency graph
+   *
+   * @param graph           the dependency graph
+   * @param durations       install duration of the packages, in any unit
+   * @param defaultDuration duration of packages that are not in durations
+   * @throws IllegalArgumentException if defaultDuration or one of the durations is negative
+   */
+  public CriticalPathAnalysis(GraphADT graph, Map<String, Long> durations, long defaultDuration) {
+    if (defaultDuration < 0)
+      throw new IllegalArgumentException("negative default duration " + defaultDuration);
+    for (Map.Entry<String, Long> entry : durations.entrySet()) {
+      if (entry.getValue() != null && entry.getValue() < 0)
+        throw new IllegalArgumentException(
+            "negative duration " + entry.getValue() + " of " + entry.getKey());
+    }
+    this.graph = graph;
+    this.durations = durations;
+    this.defaultDuration = defaultDuration;
+  }
+
+  /**
+   * This method computes the critical path, slack and parallel speedup of installing a package
+   *
+   * @param pkg the package to install
+   * @return InstallTimeEstimate for pkg and its dependencies
+   * @throws CycleException           if the dependencies of pkg contain a cycle
+   * @throws PackageNotFoundException if the package does not exist in the dependency graph
+   */
+  public InstallTimeEstimate analyze(String pkg) throws CycleException, PackageNotFoundException {
+    if (!graph.getAllVertices().contains(pkg))
+      throw new PackageNotFoundException();
+    List<String> order = topologicalOrder(pkg);
+
+    // forward pass: earliest finish, remembering the dependency that finishes last
+    HashMap<String, Long> earliestFinish = new HashMap<String, Long>(order.size() * 2);
+    HashMap<String, String> critical = new HashMap<String, String>(order.size() * 2);
+    long totalWork = 0;
+    for (String current : order) {
+      long start = 0;
+      String last = null;
+      for (String dependency : graph.getAdjacentVerticesOf(current)) {
+        long finish = earliestFinish.get(dependency);
+        if (last == null || finish > start
+            || (finish == start && dependency.compareTo(last) < 0)) {
+          start = finish;
+          last = dependency;
+        }
+      }
+      earliestFinish.put(current, start + duration(current));
+      critical.put(current, last);
+      totalWork += duration(current);
+    }
+    long makespan = earliestFinish.get(pkg);
+
+    // backward pass: latest finish, dependents come before their dependencies
+    HashMap<String, Long> latestFinish = new HashMap<String, Long>(order.size() * 2);
+    latestFinish.put(pkg, makespan);
+    HashMap<String, Long> slack = new HashMap<String, Long>(order.size() * 2);
+    for (int i = order.size() - 1; i >= 0; i--) {
+      String current = order.get(i);
+      long latestStart = latestFinish.get(current) - duration(current);
+      slack.put(current, latestFinish.get(current) - earliestFinish.get(current));
+      for (String dependency : graph.getAdjacentVerticesOf(current)) {
+        Long bound = latestFinish.get(dependency);
+        if (bound == null || latestStart < bound)
+          latestFinish.put(dependency, latestStart);
+      }
+    }
+
+    List<String> criticalPath = new ArrayList<String>();
+    for (String current = pkg; current != null; current = critical.get(current))
+      criticalPath.add(current);
+    Collections.reverse(criticalPath);
+    return new InstallTimeEstimate(pkg, makespan, totalWork, criticalPath, order, earliestFinish,
+        slack);
+  }
+
+  /**
+   * Helper method returning the duration of a package
+   */
+  private long duration(String pkg) {
+    Long duration = durations.get(pkg);
+    return duration == null ? defaultDuration : duration;
+  }
+
+  /**
+   * Helper method ordering pkg and its dependencies, dependencies first, with an iterative
+   * post-order depth first search
+   *
+   * @param pkg the root of the closure
+   * @return List<String> of the closure in topological order
+   * @throws CycleException if a dependency is reached again while it is still on the path
+   */
+  private List<String> topologicalOrder(String pkg) throws CycleException {
+    HashMap<String, Boolean> visited = new HashMap<String, Boolean>(); // false while on the path
+    ArrayDeque<String> path = new ArrayDeque<String>();
+    ArrayDeque<Iterator<String>> pending = new ArrayDeque<Iterator<String>>();
+    List<String> order = new ArrayList<String>();
+    visited.put(pkg, false);
+    path.push(pkg);
+    pending.push(graph.getAdjacentVerticesOf(pkg).iterator());
+    while (!path.isEmpty()) {
+      if (pending.peek().hasNext()) {
+        String dependency = pending.peek().next();
+        Boolean done = visited.get(dependency);
+        if (done == null) {
+          visited.put(dependency, false);
+          path.push(dependency);
+          pending.push(graph.getAdjacentVerticesOf(dependency).iterator());
+        } else if (!done) {
+          throw new CycleException();
+        }
+      } else {
+        String current = path.pop();
+        pending.pop();
+        visited.put(current, true);
+        order.add(current);
+      }
+    }
+    return order;
+  }
+
+}
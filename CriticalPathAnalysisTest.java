@@ -0,0 +1,143 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the CriticalPathAnalysis
+ */
+class CriticalPathAnalysisTest {
+  private Graph graphInstance; // the dependency graph used by every test
+  private HashMap<String, Long> durations; // install durations used by every test
+
+  /**
+   * This method runs before every test method and builds the graph
+   * A->[B, C], B->[D], C->[D], E->[D] with durations A=1, B=5, C=2, D=3, E=4
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new Graph();
+    graphInstance.addEdge("A", "B");
+    graphInstance.addEdge("A", "C");
+    graphInstance.addEdge("B", "D");
+    graphInstance.addEdge("C", "D");
+    graphInstance.addEdge("E", "D");
+    durations = new HashMap<String, Long>();
+    durations.put("A", 1L);
+    durations.put("B", 5L);
+    durations.put("C", 2L);
+    durations.put("D", 3L);
+    durations.put("E", 4L);
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    graphInstance = null;
+    durations = null;
+  }
+
+  /**
+   * This method checks the makespan, critical path and speedup of A
+   */
+  @Test
+  public void test001_critical_path() throws Exception {
+    InstallTimeEstimate estimate = new CriticalPathAnalysis(graphInstance, durations, 0)
+        .analyze("A");
+    if (estimate.getMakespan() != 9)
+      fail("D, B and A take 3 + 5 + 1 = 9, not " + estimate.getMakespan());
+    if (!estimate.getCriticalPath().equals(Arrays.asList("D", "B", "A")))
+      fail("the critical path is D, B, A and not " + estimate.getCriticalPath());
+    if (estimate.getTotalWork() != 11)
+      fail("A, B, C and D take 11 one at a time, not " + estimate.getTotalWork());
+    if (Math.abs(estimate.getSpeedup() - 11.0 / 9) > 1e-9)
+      fail("the speedup is 11 / 9, not " + estimate.getSpeedup());
+  }
+
+  /**
+   * This method checks the slack of every package and the installation order
+   */
+  @Test
+  public void test002_slack_and_order() throws Exception {
+    InstallTimeEstimate estimate = new CriticalPathAnalysis(graphInstance, durations, 0)
+        .analyze("A");
+    if (estimate.getSlack("C") != 3)
+      fail("C can finish at 8 instead of 5, its slack is 3 and not " + estimate.getSlack("C"));
+    for (String pkg : estimate.getCriticalPath()) {
+      if (estimate.getSlack(pkg) != 0)
+        fail(pkg + " is on the critical path and has no slack");
+    }
+    if (estimate.getSlack().containsKey("E"))
+      fail("E is not a dependency of A");
+    List<String> order = estimate.getInstallOrder();
+    if (order.size() != 4 || order.indexOf("D") > order.indexOf("B")
+        || order.indexOf("D") > order.indexOf("C") || !order.get(3).equals("A"))
+      fail("D must come before B and C, and A last, not " + order);
+  }
+
+  /**
+   * This method checks the default duration and the exceptions
+   */
+  @Test
+  public void test003_default_duration_and_exceptions() throws Exception {
+    InstallTimeEstimate estimate = new CriticalPathAnalysis(graphInstance,
+        new HashMap<String, Long>(), 1).analyze("A");
+    if (estimate.getMakespan() != 3 || estimate.getSpeedup() != 4.0 / 3)
+      fail("with unit durations A takes 3 and 4 packages fit in it");
+    try {
+      new CriticalPathAnalysis(graphInstance, durations, 0).analyze("Z");
+      fail("Z is not in the graph");
+    } catch (PackageNotFoundException e) {
+      // expected
+    }
+    graphInstance.addEdge("D", "A");
+    try {
+      new CriticalPathAnalysis(graphInstance, durations, 0).analyze("E");
+      fail("D and A are in a cycle");
+    } catch (CycleException e) {
+      // expected
+    }
+  }
+
+  /**
+   * This method checks that negative durations are rejected and that the estimate throws for
+   * packages outside of the installation order
+   */
+  @Test
+  public void test004_negative_durations_and_unknown_packages() throws Exception {
+    try {
+      new CriticalPathAnalysis(graphInstance, durations, -1);
+      fail("a negative default duration must be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    durations.put("C", -2L);
+    try {
+      new CriticalPathAnalysis(graphInstance, durations, 0);
+      fail("the negative duration of C must be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    durations.put("C", 2L);
+    InstallTimeEstimate estimate = new CriticalPathAnalysis(graphInstance, durations, 0)
+        .analyze("B");
+    try {
+      estimate.getEarliestFinish("A");
+      fail("A is not in the installation order of B");
+    } catch (PackageNotFoundException e) {
+      // expected
+    }
+    try {
+      estimate.getSlack("Z");
+      fail("Z is not in the graph");
+    } catch (PackageNotFoundException e) {
+      // expected
+    }
+  }
+
+}
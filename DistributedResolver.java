@@ -0,0 +1,199 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filename:   DistributedResolver.java
+ * Project:    p4
+ *
+ * Resolves installation orders over a graph that is split across several ShardNodes, none of
+ * which holds the whole graph. The nodes run in this process, each on its own thread, and only
+ * talk to the resolver through messages, so they stand in for nodes on other machines.
+ *
+ * A resolution proceeds in rounds. The resolver sends every shard the frontier of packages it
+ * owns and has not been asked for yet; the shards answer in parallel with the dependency lists
+ * they walked and the dependencies they reached on other shards, which form the next frontier.
+ * Once no frontier is left the resolver holds exactly the closure of the package and orders it
+ * with a PackageManager, so the result is the same as a PackageManager over the full graph.
+ *
+ * The number of rounds is bounded by the number of times a dependency chain crosses shards,
+ * which the GraphPartitioner keeps low. Nodes do not remember earlier messages, so a package
+ * reached again through a later frontier is walked again; the resolver drops the duplicates and
+ * the message volume counters include them.
+ */
+public class DistributedResolver {
+
+  private final GraphPartitioner.Partition partition; // owner of every package
+  private final ShardNode[] nodes; // node by shard
+  private final ExecutorService network; // delivers the messages, one thread per node
+
+  private final LongAdder resolutions = new LongAdder(); // resolutions started
+  private final LongAdder rounds = new LongAdder(); // frontier exchanges
+  private final LongAdder messages = new LongAdder(); // requests and responses
+  private final LongAdder packagesSent = new LongAdder(); // package names in requests
+  private final LongAdder packagesReceived = new LongAdder(); // package names in responses
+
+  /**
+   * Partitions the graph and starts one node per shard
+   *
+   * @param graph  the dependency graph, only read while the nodes are created
+   * @param shards the number of shards
+   */
+  public DistributedResolver(GraphADT graph, int shards) {
+    this(graph, new GraphPartitioner(graph).partition(shards));
+  }
+
+  /**
+   * Starts one node per shard of an existing partition
+   *
+   * @param graph     the dependency graph, only read while the nodes are created
+   * @param partition the partition of the graph
+   */
+  public DistributedResolver(GraphADT graph, GraphPartitioner.Partition partition) {
+    this.partition = partition;
+    this.nodes = new ShardNode[partition.getShardCount()];
+    for (int s = 0; s < nodes.length; s++)
+      nodes[s] = new ShardNode(graph, partition, s);
+    this.network = Executors.newFixedThreadPool(nodes.length, new ThreadFactory() {
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "shard-node");
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Distributed PackageManager.getInstallationOrder
+   *
+   * @param pkg the package to resolve
+   * @return List<String> of the installation order
+   * @throws CycleException           if the dependencies of pkg contain a cycle
+   * @throws PackageNotFoundException if the package does not exist in the dependency graph
+   */
+  public List<String> getInstallationOrder(String pkg)
+      throws CycleException, PackageNotFoundException {
+    int owner = partition.shardOf(pkg);
+    if (owner < 0)
+      throw new PackageNotFoundException();
+    resolutions.increment();
+
+    HashMap<String, List<String>> closure = new HashMap<String, List<String>>();
+    Set<String> requested = new HashSet<String>();
+    requested.add(pkg);
+    HashMap<Integer, List<String>> frontier = new HashMap<Integer, List<String>>();
+    frontier.put(owner, new ArrayList<String>(Collections.singletonList(pkg)));
+    while (!frontier.isEmpty()) {
+      rounds.increment();
+      HashMap<Integer, List<String>> next = new HashMap<Integer, List<String>>();
+      for (ShardNode.Expansion expansion : exchange(frontier)) {
+        for (Map.Entry<String, List<String>> walked : expansion.getDependencies().entrySet())
+          closure.put(walked.getKey(), walked.getValue());
+        for (String dependency : expansion.getRemote()) {
+          if (closure.containsKey(dependency) || !requested.add(dependency))
+            continue;
+          int shard = partition.shardOf(dependency);
+          if (!next.containsKey(shard))
+            next.put(shard, new ArrayList<String>());
+          next.get(shard).add(dependency);
+        }
+      }
+      frontier = next;
+    }
+
+    Graph subgraph = new Graph();
+    for (Map.Entry<String, List<String>> entry : closure.entrySet()) {
+      subgraph.addVertex(entry.getKey());
+      for (String dependency : entry.getValue())
+        subgraph.addEdge(entry.getKey(), dependency);
+    }
+    return new PackageManager(subgraph).getInstallationOrder(pkg);
+  }
+
+  /**
+   * Helper method sending every shard its frontier and collecting the answers of one round
+   */
+  private List<ShardNode.Expansion> exchange(HashMap<Integer, List<String>> frontier) {
+    List<Callable<ShardNode.Expansion>> requests = new ArrayList<Callable<ShardNode.Expansion>>();
+    for (final Map.Entry<Integer, List<String>> entry : frontier.entrySet()) {
+      messages.increment();
+      packagesSent.add(entry.getValue().size());
+      requests.add(new Callable<ShardNode.Expansion>() {
+        public ShardNode.Expansion call() {
+          return nodes[entry.getKey()].expand(entry.getValue());
+        }
+      });
+    }
+    List<ShardNode.Expansion> answers = new ArrayList<ShardNode.Expansion>(requests.size());
+    try {
+      for (Future<ShardNode.Expansion> answer : network.invokeAll(requests)) {
+        ShardNode.Expansion expansion = answer.get();
+        messages.increment();
+        long names = expansion.getRemote().size();
+        for (List<String> dependencies : expansion.getDependencies().values())
+          names += 1 + dependencies.size();
+        packagesReceived.add(names);
+        answers.add(expansion);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("resolution interrupted");
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("shard node failed", e.getCause());
+    }
+    return answers;
+  }
+
+  /**
+   * @return the partition the nodes serve
+   */
+  public GraphPartitioner.Partition getPartition() {
+    return this.partition;
+  }
+
+  /**
+   * This method returns the message counters since the last reset
+   *
+   * @return Map<String, Long> of resolutions, rounds, messages, packagesSent and packagesReceived
+   */
+  public Map<String, Long> getStats() {
+    HashMap<String, Long> stats = new HashMap<String, Long>();
+    stats.put("resolutions", resolutions.sum());
+    stats.put("rounds", rounds.sum());
+    stats.put("messages", messages.sum());
+    stats.put("packagesSent", packagesSent.sum());
+    stats.put("packagesReceived", packagesReceived.sum());
+    return stats;
+  }
+
+  /**
+   * This method resets the message counters
+   */
+  public void resetStats() {
+    resolutions.reset();
+    rounds.reset();
+    messages.reset();
+    packagesSent.reset();
+    packagesReceived.reset();
+  }
+
+  /**
+   * This method stops the node threads
+   */
+  public void shutdown() {
+    network.shutdownNow();
+  }
+
+}
@@ -0,0 +1,116 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the GraphPartitioner and the DistributedResolver
+ */
+class DistributedResolverTest {
+  private Graph graphInstance; // the dependency graph used by every test
+  private DistributedResolver resolverInstance; // resolver created by a test, shut down after it
+
+  /**
+   * This method runs before every test method and builds two clusters joined by one edge:
+   * a0..a9 where ai depends on a(i+1) and a(i+2), b0..b9 the same way, and a9->b0
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new Graph();
+    for (String cluster : new String[] {"a", "b"}) {
+      for (int i = 0; i < 10; i++) {
+        graphInstance.addVertex(cluster + i);
+        if (i + 1 < 10)
+          graphInstance.addEdge(cluster + i, cluster + (i + 1));
+        if (i + 2 < 10)
+          graphInstance.addEdge(cluster + i, cluster + (i + 2));
+      }
+    }
+    graphInstance.addEdge("a9", "b0");
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    if (resolverInstance != null)
+      resolverInstance.shutdown();
+    graphInstance = null;
+    resolverInstance = null;
+  }
+
+  /**
+   * This method checks that the partitioner keeps clusters and cycles together
+   */
+  @Test
+  public void test001_partition_cuts_few_edges() {
+    graphInstance.addEdge("b9", "b8");
+    GraphPartitioner.Partition partition = new GraphPartitioner(graphInstance).partition(2);
+    if (partition.getPackages(0).size() + partition.getPackages(1).size() != 20)
+      fail("every package belongs to exactly one shard");
+    if (partition.shardOf("b8") != partition.shardOf("b9"))
+      fail("the cycle b8, b9 must not be split");
+    if (partition.getCutEdges() > 1)
+      fail("only a9->b0 has to be cut, but " + partition.getCutEdges() + " edges are");
+    if (partition.shardOf("z") != -1)
+      fail("z is not in the graph");
+  }
+
+  /**
+   * This method checks that distributed resolution gives the same orders as a local one
+   */
+  @Test
+  public void test002_same_orders_as_local() throws Exception {
+    Graph random = new Graph();
+    Random rnd = new Random(36);
+    for (int i = 0; i < 200; i++) {
+      random.addVertex("p" + i);
+      for (int d = 0; d < 3 && i + 1 < 200; d++)
+        random.addEdge("p" + i, "p" + (i + 1 + rnd.nextInt(Math.min(40, 199 - i))));
+    }
+    PackageManager local = new PackageManager(random);
+    resolverInstance = new DistributedResolver(random, 4);
+    for (int i = 0; i < 200; i += 7) {
+      if (!resolverInstance.getInstallationOrder("p" + i)
+          .equals(local.getInstallationOrder("p" + i)))
+        fail("p" + i + " must resolve to " + local.getInstallationOrder("p" + i));
+    }
+  }
+
+  /**
+   * This method checks the exceptions and the message counters
+   */
+  @Test
+  public void test003_exceptions_and_message_volume() throws Exception {
+    graphInstance.addEdge("c0", "c1");
+    graphInstance.addEdge("c1", "c0");
+    resolverInstance = new DistributedResolver(graphInstance, 2);
+    resolverInstance.getInstallationOrder("b0");
+    Map<String, Long> stats = resolverInstance.getStats();
+    if (stats.get("rounds") != 1 || stats.get("messages") != 2)
+      fail("b0 and its dependencies are on one shard, one request and one answer: " + stats);
+    resolverInstance.getInstallationOrder("a0");
+    stats = resolverInstance.getStats();
+    if (stats.get("rounds") != 3 || stats.get("messages") != 6)
+      fail("a0 needs a round on its shard and one on the shard of b0: " + stats);
+    try {
+      resolverInstance.getInstallationOrder("c0");
+      fail("c0 and c1 are in a cycle");
+    } catch (CycleException e) {
+      // expected
+    }
+    try {
+      resolverInstance.getInstallationOrder("z");
+      fail("z is not in the graph");
+    } catch (PackageNotFoundException e) {
+      // expected
+    }
+    resolverInstance.resetStats();
+    if (resolverInstance.getStats().get("messages") != 0)
+      fail("the counters must be reset");
+  }
+
+}
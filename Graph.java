@@ -12,8 +12,14 @@
 /////////////////////////////// PAIR PROGRAMMERS COMPLETE THIS SECTION /////////////////////////////
 //                                                None
 //////////////////////////////////////// CREDIT OUTSIDE HELP ///////////////////////////////////////
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -22,6 +28,13 @@ import java.util.Set;
  * This class creates an instance of a directed and unweighted graph implementation and implements
  * the graphADT.java
  * 
+ * A graph created in acyclic mode never contains a cycle. It keeps a topological rank for every
+ * vertex (a dependent is ranked before its dependencies) and checks every new edge against it:
+ * an edge that agrees with the ranks is added in O(1), otherwise only the vertices ranked between
+ * its two ends are searched, forwards from the dependency and backwards from the dependent
+ * (Pearce-Kelly). If the searches meet, the edge would close a cycle and is rejected, otherwise
+ * the ranks of the searched vertices are swapped into a valid order.
+ * 
  * @author Vedaant Tambi
  *
  */
@@ -32,6 +45,11 @@ public class Graph implements GraphADT {
   private HashSet<String> vertices; // HashSet used to store all vertices
   private int numVertices; // number of vertices in the graph
   private int numEdges; // number of edges in the graph
+  private boolean acyclic; // true if edges that would close a cycle are rejected
+  private HashMap<String, Integer> rank; // topological rank by vertex, acyclic mode only
+  private HashMap<String, LinkedList<String>> dependents; // reversed edges, acyclic mode only
+  private int nextRank; // rank after every vertex, acyclic mode only
+  private int firstRank; // rank before every vertex, acyclic mode only
 
   /**
    * This creates an instance of a graph annd initializes the respective data fields
@@ -44,6 +62,29 @@ public class Graph implements GraphADT {
     numEdges = 0;
   }
 
+  /**
+   * This creates a graph that optionally rejects every edge that would close a cycle
+   * 
+   * @param acyclic true to keep the graph free of cycles at all times
+   */
+  public Graph(boolean acyclic) {
+    this();
+    this.acyclic = acyclic;
+    if (acyclic) {
+      rank = new HashMap<String, Integer>();
+      dependents = new HashMap<String, LinkedList<String>>();
+    }
+  }
+
+  /**
+   * This method tells whether the graph rejects edges that would close a cycle
+   * 
+   * @return true if the graph was created in acyclic mode
+   */
+  public boolean isAcyclicMode() {
+    return acyclic;
+  }
+
   /**
    * This method adds a new vertex to the graph. If vertex is null or already exists, method ends
    * without adding a vertex or throwing an exception.
@@ -57,6 +98,10 @@ public class Graph implements GraphADT {
       vertices.add(vertex); // if the vertex is not already present, then it is added to the set
       adjList.put(vertex, new LinkedList<String>()); // vertex is added to the adjacency list
       numVertices += 1; // numvertices is incremented
+      if (acyclic) { // a vertex without edges fits anywhere, rank it last
+        rank.put(vertex, nextRank++);
+        dependents.put(vertex, new LinkedList<String>());
+      }
     }
   }
 
@@ -78,12 +123,59 @@ public class Graph implements GraphADT {
         if (adjNeighbors.remove(vertex))
           numEdges--; // 'the number of edges is decrease by one for each edge removedd
       }
+      if (acyclic) { // keep the reversed edges in step, removing edges never breaks the ranks
+        for (String dependency : adjList.get(vertex))
+          dependents.get(dependency).remove(vertex);
+        dependents.remove(vertex);
+        rank.remove(vertex);
+      }
       adjList.remove(vertex); // the vertex is removed from the adjacency list
       vertices.remove(vertex); // the vertex is removed from the set of vertices
       numVertices--; // the number of vertices is updated
     }
   }
 
+  /**
+   * This method removes several vertices and all associated edges in one pass over the adjacency
+   * lists, instead of one pass per vertex as with removeVertex. Null and missing vertices are
+   * ignored.
+   *
+   * @param toRemove the vertices to be removed
+   */
+  public void removeVertices(Collection<String> toRemove) {
+    HashSet<String> removed = new HashSet<String>(); // the vertices that are actually present
+    for (String vertex : toRemove) {
+      if (vertex != null && hasVertex(vertex))
+        removed.add(vertex);
+    }
+    if (removed.isEmpty())
+      return;
+    for (String vertex : removed) { // drop the vertices together with their own edges
+      LinkedList<String> dependencies = adjList.remove(vertex);
+      numEdges -= dependencies.size();
+      vertices.remove(vertex);
+      numVertices--;
+      if (acyclic) {
+        for (String dependency : dependencies) {
+          if (!removed.contains(dependency))
+            dependents.get(dependency).remove(vertex);
+        }
+        dependents.remove(vertex);
+        rank.remove(vertex);
+      }
+    }
+    // a single pass drops the edges pointing to any removed vertex
+    for (LinkedList<String> adjNeighbors : adjList.values()) {
+      Iterator<String> itr = adjNeighbors.iterator();
+      while (itr.hasNext()) {
+        if (removed.contains(itr.next())) {
+          itr.remove();
+          numEdges--;
+        }
+      }
+    }
+  }
+
   /**
    * Helper method to check whether a particular vertex is present in the set of vertices
    * 
@@ -112,6 +204,8 @@ public class Graph implements GraphADT {
    * This method adds the edge from vertex1 to vertex2 to this graph. (edge is directed and
    * unweighted). If either vertex does not exist, add the non-existing vertex to the graph and then
    * create an edge. If the edge exists in the graph, no edge is added and no exception is thrown.
+   * In acyclic mode an edge that would close a cycle is not added either, use addEdgeChecked to
+   * find out.
    * 
    * @param vertex1 must not be null and the edge from this vertex should be in the graph
    * @param vertex2 must not be null and the edge from this vertex should not be in the graph
@@ -125,8 +219,102 @@ public class Graph implements GraphADT {
       addVertex(vertex1);
     if (!(hasVertex(vertex2))) // if the second vertex is not present then it is added to the graph
       addVertex(vertex2);
+    if (acyclic && !reorder(vertex1, vertex2))
+      return; // the edge would close a cycle
     adjList.get(vertex1).add(vertex2); //
     numEdges++;
+    if (acyclic)
+      dependents.get(vertex2).add(vertex1);
+  }
+
+  /**
+   * This method adds an edge like addEdge, but in acyclic mode it reports an edge that would close
+   * a cycle instead of silently ignoring it. The graph is unchanged in that case.
+   * 
+   * @param vertex1 the dependent vertex
+   * @param vertex2 the vertex vertex1 depends on
+   * @throws CycleException if the graph is in acyclic mode and vertex2 already depends on vertex1
+   */
+  public void addEdgeChecked(String vertex1, String vertex2) throws CycleException {
+    if (acyclic && vertex1 != null && vertex2 != null && !hasEdge(vertex1, vertex2)) {
+      if (vertex1.equals(vertex2)
+          || (hasVertex(vertex1) && hasVertex(vertex2) && !reorder(vertex1, vertex2)))
+        throw new CycleException();
+    }
+    addEdge(vertex1, vertex2);
+  }
+
+  /**
+   * Helper method making room in the ranks for the edge from -> to, i.e. ranking from before to.
+   * Only vertices ranked between to and from can be on a path from to back to from, so the search
+   * is bounded by the ranks of the two vertices.
+   * 
+   * @param from the dependent vertex, in the graph
+   * @param to   the dependency, in the graph
+   * @return false if to already depends on from and the edge would close a cycle
+   */
+  private boolean reorder(String from, String to) {
+    if (from.equals(to))
+      return false;
+    if (adjList.get(from).isEmpty() && dependents.get(from).isEmpty())
+      rank.put(from, --firstRank); // a vertex without edges can move anywhere without a search
+    else if (adjList.get(to).isEmpty() && dependents.get(to).isEmpty())
+      rank.put(to, nextRank++);
+    final int lower = rank.get(to);
+    final int upper = rank.get(from);
+    if (upper < lower)
+      return true; // the ranks already agree with the edge
+
+    // forwards from to: everything to depends on, ranked before from
+    List<String> forward = new ArrayList<String>();
+    HashSet<String> seen = new HashSet<String>();
+    ArrayDeque<String> stack = new ArrayDeque<String>();
+    seen.add(to);
+    stack.push(to);
+    while (!stack.isEmpty()) {
+      String current = stack.pop();
+      forward.add(current);
+      for (String dependency : adjList.get(current)) {
+        if (dependency.equals(from))
+          return false; // to reaches from
+        if (rank.get(dependency) < upper && seen.add(dependency))
+          stack.push(dependency);
+      }
+    }
+
+    // backwards from from: everything that depends on from, ranked after to
+    List<String> backward = new ArrayList<String>();
+    seen.add(from);
+    stack.push(from);
+    while (!stack.isEmpty()) {
+      String current = stack.pop();
+      backward.add(current);
+      for (String dependent : dependents.get(current)) {
+        if (rank.get(dependent) > lower && seen.add(dependent))
+          stack.push(dependent);
+      }
+    }
+
+    // the dependents of from take the lowest of the freed ranks, the dependencies of to the rest
+    Comparator<String> byRank = new Comparator<String>() {
+      public int compare(String a, String b) {
+        return Integer.compare(rank.get(a), rank.get(b));
+      }
+    };
+    Collections.sort(backward, byRank);
+    Collections.sort(forward, byRank);
+    List<Integer> ranks = new ArrayList<Integer>(backward.size() + forward.size());
+    for (String vertex : backward)
+      ranks.add(rank.get(vertex));
+    for (String vertex : forward)
+      ranks.add(rank.get(vertex));
+    Collections.sort(ranks);
+    int next = 0;
+    for (String vertex : backward)
+      rank.put(vertex, ranks.get(next++));
+    for (String vertex : forward)
+      rank.put(vertex, ranks.get(next++));
+    return true;
   }
 
   /**
@@ -144,6 +332,8 @@ public class Graph implements GraphADT {
       return;
     adjList.get(vertex1).remove(vertex2); // the vertex is removed from vertex1's adjacency list
     numEdges--; // the number if edges decrease by 1
+    if (acyclic)
+      dependents.get(vertex2).remove(vertex1);
   }
 
   /**
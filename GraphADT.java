@@ -1,3 +1,4 @@
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -103,6 +104,44 @@ public interface GraphADT {
      * @return an List<String> of all the adjacent vertices for specified vertex
      */
     public List<String> getAdjacentVerticesOf(String vertex);
+
+
+    /**
+     * Add the neighbors of a vertex to a collection, e.g. a
+     * list the caller is about to sort. Storages that decode
+     * their lists override it to decode straight into target
+     * instead of into a new list first.
+     *
+     * @param vertex the specified vertex
+     * @param target the collection the neighbors are added to
+     * @return false if vertex is null or not in the graph
+     */
+    public default boolean addAdjacentVerticesTo(String vertex,
+        Collection<String> target) {
+        List<String> neighbors = getAdjacentVerticesOf(vertex);
+        if (neighbors == null)
+            return false;
+        target.addAll(neighbors);
+        return true;
+    }
+
+
+    /**
+     * Add the edges from vertex to each of the neighbors, e.g.
+     * all dependencies of a package at once while loading.
+     * Storages that re-encode a list per edge override it to
+     * do so once. Missing vertices are added, existing edges
+     * and null neighbors are skipped like with addEdge.
+     *
+     * @param vertex the source vertex
+     * @param neighbors the destination vertices
+     */
+    public default void addEdges(String vertex,
+        Collection<String> neighbors) {
+        addVertex(vertex);
+        for (String neighbor : neighbors)
+            addEdge(vertex, neighbor);
+    }
     
 
     /**
@@ -0,0 +1,188 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Filename:   GraphPartitioner.java
+ * Project:    p4
+ *
+ * Splits the dependency graph into shards of about equal size so that few dependency edges cross
+ * from one shard to another. Every edge that crosses shards costs a message when a resolution
+ * follows it, see DistributedResolver.
+ *
+ * - the graph is condensed into its strongly connected components, a cycle is never split
+ * - components are dealt out to the shards in topological order, so a package starts out close
+ *   to its dependencies
+ * - label propagation then moves every component to the shard most of its edges lead to, as long
+ *   as that shard stays below its capacity, until no component moves any more
+ *
+ * Partitioning is O(rounds * (V + E)) with at most MAX_ROUNDS rounds.
+ */
+public class GraphPartitioner {
+
+  private static final int MAX_ROUNDS = 20; // label propagation rounds
+  private static final double IMBALANCE = 0.1; // a shard may grow 10% over the average size
+
+  /**
+   * The assignment of packages to shards
+   */
+  public static class Partition {
+    private final IndexedGraph snapshot; // the partitioned graph
+    private final int[] shard; // shard by vertex id
+    private final int shardCount;
+    private final int cutEdges; // edges between packages on different shards
+
+    private Partition(IndexedGraph snapshot, int[] shard, int shardCount) {
+      this.snapshot = snapshot;
+      this.shard = shard;
+      this.shardCount = shardCount;
+      int cut = 0;
+      for (int v = 0; v < snapshot.order(); v++) {
+        for (int i = 0; i < snapshot.outDegree(v); i++) {
+          if (shard[v] != shard[snapshot.successor(v, i)])
+            cut++;
+        }
+      }
+      this.cutEdges = cut;
+    }
+
+    /**
+     * @param pkg a package
+     * @return the shard that owns pkg, or -1 if pkg was not in the graph
+     */
+    public int shardOf(String pkg) {
+      int v = snapshot.idOf(pkg);
+      return v < 0 ? -1 : shard[v];
+    }
+
+    /**
+     * @return the number of shards
+     */
+    public int getShardCount() {
+      return this.shardCount;
+    }
+
+    /**
+     * @param s a shard
+     * @return List<String> of the packages owned by shard s, sorted
+     */
+    public List<String> getPackages(int s) {
+      List<String> packages = new ArrayList<String>();
+      for (int v = 0; v < shard.length; v++) {
+        if (shard[v] == s)
+          packages.add(snapshot.nameOf(v));
+      }
+      Collections.sort(packages);
+      return packages;
+    }
+
+    /**
+     * @return the number of dependency edges between packages on different shards
+     */
+    public int getCutEdges() {
+      return this.cutEdges;
+    }
+
+    /**
+     * @return the number of dependency edges in the partitioned graph
+     */
+    public int getEdgeCount() {
+      return snapshot.size();
+    }
+  }
+
+  private final GraphADT graph; // the graph to partition
+
+  /**
+   * Creates a partitioner for the given graph
+   *
+   * @param graph the dependency graph
+   */
+  public GraphPartitioner(GraphADT graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * This method splits the current state of the graph into shards
+   *
+   * @param shards the number of shards, at least 1
+   * @return Partition of the packages
+   */
+  public Partition partition(int shards) {
+    if (shards < 1)
+      throw new IllegalArgumentException("shards must be at least 1");
+    IndexedGraph snapshot = IndexedGraph.of(graph);
+    IndexedGraph dependents = snapshot.reverse();
+    Condensation condensation = snapshot.condense();
+    int n = snapshot.order();
+    int components = condensation.componentCount();
+    int capacity = (int) Math.ceil(n / (double) shards * (1 + IMBALANCE));
+
+    // deal out the components in topological order, filling one shard after the other
+    int[] shardOfComponent = new int[components];
+    int[] load = new int[shards];
+    int filled = 0;
+    for (int c = 0; c < components; c++) {
+      int s = (int) Math.min(shards - 1, (long) filled * shards / Math.max(1, n));
+      shardOfComponent[c] = s;
+      load[s] += condensation.componentSize(c);
+      filled += condensation.componentSize(c);
+    }
+
+    int[] weight = new int[shards]; // edges from the current component to each shard
+    int[] touched = new int[shards]; // shards with a non-zero weight
+    for (int round = 0; round < MAX_ROUNDS; round++) {
+      int moved = 0;
+      for (int c = 0; c < components; c++) {
+        int count = 0;
+        for (int i = 0; i < condensation.componentSize(c); i++) {
+          int v = condensation.member(c, i);
+          count = tally(snapshot, v, c, condensation, shardOfComponent, weight, touched, count);
+          count = tally(dependents, v, c, condensation, shardOfComponent, weight, touched, count);
+        }
+        int current = shardOfComponent[c];
+        int best = current;
+        for (int i = 0; i < count; i++) {
+          int s = touched[i];
+          if (weight[s] > weight[best]
+              && load[s] + condensation.componentSize(c) <= capacity)
+            best = s;
+        }
+        for (int i = 0; i < count; i++)
+          weight[touched[i]] = 0;
+        if (best != current) {
+          load[current] -= condensation.componentSize(c);
+          load[best] += condensation.componentSize(c);
+          shardOfComponent[c] = best;
+          moved++;
+        }
+      }
+      if (moved == 0)
+        break;
+    }
+
+    int[] shard = new int[n];
+    for (int v = 0; v < n; v++)
+      shard[v] = shardOfComponent[condensation.component(v)];
+    return new Partition(snapshot, shard, shards);
+  }
+
+  /**
+   * Helper method adding the edges of v that leave its component to the weights of their shards
+   *
+   * @return the new number of touched shards
+   */
+  private static int tally(IndexedGraph edges, int v, int c, Condensation condensation,
+      int[] shardOfComponent, int[] weight, int[] touched, int count) {
+    for (int i = 0; i < edges.outDegree(v); i++) {
+      int other = condensation.component(edges.successor(v, i));
+      if (other == c)
+        continue;
+      int s = shardOfComponent[other];
+      if (weight[s]++ == 0)
+        touched[count++] = s;
+    }
+    return count;
+  }
+
+}
@@ -0,0 +1,292 @@
+import java.io.PrintStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Filename:   GraphProfiler.java
+ * Project:    p4
+ *
+ * Measures the memory cost of the graph storages on the same synthetic registry, for several
+ * registry sizes:
+ *
+ * heapBytes         retained heap of the loaded graph
+ * directBytes       retained direct buffer memory of the loaded graph
+ * bytesPerVertex    heapBytes + directBytes divided by the number of packages
+ * bytesPerEdge      heapBytes + directBytes divided by the number of dependencies
+ * indexHeapBytes    heap retained by a PackageManager after its first dependsOn query, without
+ *                   the graph
+ * loadNanosPerEdge  wall time to build the graph divided by the number of dependencies
+ * allocPerOrder     bytes allocated by one getInstallationOrder call
+ * nanosPerOrder     wall time of one getInstallationOrder call
+ * allocPerAdjacency bytes allocated by one getAdjacentVerticesOf call
+ * nanosPerAdjacency wall time of one addAdjacentVerticesTo call and walking its result
+ *
+ * Allocations are counted per thread with the allocation counter of the HotSpot ThreadMXBean
+ * (-1 on JVMs without it), so they are exact and include nothing from other threads. Retained
+ * sizes are the drop in used heap (after repeated System.gc() calls) when the structure is
+ * released, accurate to a few hundred bytes with a fixed heap (-Xms = -Xmx). The serial
+ * collector, which the JVM picks on small machines, does not report the used heap reliably after
+ * System.gc(); run with -XX:+UseParallelGC or -XX:+UseG1GC instead.
+ *
+ * The registry is shaped like a binary heap with shared dependencies: package i depends on
+ * packages 2i+1, 2i+2 and 2i+3, so most packages have small closures and the root has all others.
+ *
+ * Timings depend on which storages ran before in the same JVM: the calls of the resolver into
+ * the graph are compiled for the first storage and the next ones ran 2-3x slower, whichever came
+ * first. Compare the timings of storages from separate runs with --structure.
+ *
+ * Usage: java GraphProfiler [--json] [--structure name ...] [vertices ...]
+ * Results are printed as CSV (structure,vertices,edges,metric,value) or with --json as one JSON
+ * object per line, so runs can be diffed and compared by scripts.
+ */
+public class GraphProfiler {
+
+  private static final String[] STRUCTURES =
+      {"Graph", "AcyclicGraph", "CompressedGraph", "OffHeapGraph"};
+  private static final int ORDER_QUERIES = 2000; // getInstallationOrder calls per measurement
+
+  private final PrintStream out; // receives the results
+  private final boolean json; // true for JSON lines, false for CSV
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+  private Object measured; // the structure being measured, a field so the JIT cannot drop it
+
+  /**
+   * Creates a profiler
+   *
+   * @param out  receives the results
+   * @param json true for JSON lines, false for CSV
+   */
+  public GraphProfiler(PrintStream out, boolean json) {
+    this.out = out;
+    this.json = json;
+  }
+
+  /**
+   * This method profiles every storage for a registry of the given size
+   *
+   * @param vertices the number of packages
+   * @throws Exception if a resolution fails, which the synthetic registry never does
+   */
+  public void profile(int vertices) throws Exception {
+    for (String structure : STRUCTURES)
+      profile(structure, vertices);
+  }
+
+  /**
+   * This method profiles one storage for a registry of the given size
+   *
+   * @param structure one of Graph, AcyclicGraph, CompressedGraph, OffHeapGraph
+   * @param vertices  the number of packages
+   * @throws Exception if a resolution fails, which the synthetic registry never does
+   */
+  public void profile(String structure, int vertices) throws Exception {
+    // sizes are what releasing the structure frees, a baseline taken before building it would
+    // also count the JDK classes and caches that are initialized on first use
+    retainedHeap(); // settle what the previous measurement left behind
+    GraphADT graph = build(structure, vertices);
+    int edges = graph.size();
+    measured = graph;
+    graph = null;
+    long heap = retainedHeap();
+    long direct = directBytes();
+    measured = null;
+    heap -= retainedHeap();
+    direct -= directBytes();
+    report(structure, vertices, edges, "heapBytes", heap);
+    report(structure, vertices, edges, "directBytes", direct);
+    report(structure, vertices, edges, "bytesPerVertex", (heap + direct) / (double) vertices);
+    report(structure, vertices, edges, "bytesPerEdge", (heap + direct) / (double) edges);
+
+    long start = System.nanoTime(); // the second build, the first one warmed up the JIT
+    graph = build(structure, vertices);
+    report(structure, vertices, edges, "loadNanosPerEdge",
+        (System.nanoTime() - start) / (double) edges);
+    PackageManager manager = new PackageManager(graph);
+    manager.dependsOn("p0", "p" + (vertices - 1));
+    measured = manager;
+    long index = retainedHeap();
+    measured = null;
+    manager = new PackageManager(graph); // the same graph without the index
+    index -= retainedHeap();
+    report(structure, vertices, edges, "indexHeapBytes", index);
+
+    // run every workload twice, the first time only warms up the JIT
+    List<String> queries = new ArrayList<String>(ORDER_QUERIES);
+    Random rnd = new Random(40);
+    // skip the packages near the root, their closures are huge
+    for (int i = 0; i < ORDER_QUERIES; i++)
+      queries.add("p" + (vertices / 64 + rnd.nextInt(vertices - vertices / 64)));
+    for (int round = 0; round < 2; round++) {
+      long allocated = allocatedBytes();
+      start = System.nanoTime();
+      for (String pkg : queries)
+        manager.getInstallationOrder(pkg);
+      long elapsed = System.nanoTime() - start;
+      allocated = allocatedBytes() - allocated;
+      if (round == 1) {
+        report(structure, vertices, edges, "allocPerOrder", perOp(allocated, queries.size()));
+        report(structure, vertices, edges, "nanosPerOrder", elapsed / (double) queries.size());
+      }
+    }
+    String[] names = new String[vertices]; // built up front so only the lookups are counted
+    for (int i = 0; i < vertices; i++)
+      names[i] = "p" + i;
+    for (int round = 0; round < 2; round++) {
+      long allocated = allocatedBytes();
+      for (String pkg : names)
+        graph.getAdjacentVerticesOf(pkg);
+      allocated = allocatedBytes() - allocated;
+      if (round == 1)
+        report(structure, vertices, edges, "allocPerAdjacency", perOp(allocated, vertices));
+    }
+    int walked = 0; // used below, so the JIT cannot drop the walks
+    List<String> neighbors = new ArrayList<String>(); // reused like the lists of the resolver
+    for (int round = 0; round < 2; round++) {
+      start = System.nanoTime();
+      for (String pkg : names) {
+        neighbors.clear();
+        graph.addAdjacentVerticesTo(pkg, neighbors);
+        for (String dependency : neighbors)
+          walked += dependency.length();
+      }
+      long elapsed = System.nanoTime() - start;
+      if (round == 1)
+        report(structure, vertices, edges, "nanosPerAdjacency",
+            walked < 0 ? -1 : elapsed / (double) vertices);
+    }
+  }
+
+  /**
+   * Helper method building the synthetic registry in the given storage
+   */
+  private static GraphADT build(String structure, int vertices) {
+    GraphADT graph;
+    if (structure.equals("Graph"))
+      graph = new Graph();
+    else if (structure.equals("AcyclicGraph"))
+      graph = new Graph(true);
+    else if (structure.equals("CompressedGraph"))
+      graph = new CompressedGraph();
+    else if (structure.equals("OffHeapGraph"))
+      graph = new OffHeapGraph(vertices);
+    else
+      throw new IllegalArgumentException("unknown structure " + structure);
+    // one String per package, as PackageManager.constructGraph interns the names
+    String[] names = new String[vertices];
+    for (int i = 0; i < vertices; i++)
+      names[i] = "p" + i;
+    List<String> dependencies = new ArrayList<String>(3);
+    for (int i = 0; i < vertices; i++) {
+      graph.addVertex(names[i]);
+      dependencies.clear();
+      for (int d = 2 * i + 1; d <= 2 * i + 3 && d < vertices; d++)
+        dependencies.add(names[d]);
+      graph.addEdges(names[i], dependencies); // as PackageManager.constructGraph does
+    }
+    return graph;
+  }
+
+  /**
+   * Helper method returning the used heap once garbage collection no longer frees anything. Some
+   * collectors only release everything after a few collections, so this takes at least three.
+   */
+  private long retainedHeap() throws InterruptedException {
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 10; i++) {
+      System.gc();
+      Thread.sleep(50);
+      long now = memory.getHeapMemoryUsage().getUsed();
+      if (i >= 2 && now >= used)
+        return now;
+      used = Math.min(used, now);
+    }
+    return used;
+  }
+
+  /**
+   * Helper method returning the memory used by direct buffers
+   */
+  private static long directBytes() {
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if (pool.getName().equals("direct"))
+        return pool.getMemoryUsed();
+    }
+    return 0;
+  }
+
+  /**
+   * Helper method returning the bytes allocated by the current thread, -1 if unsupported
+   */
+  private long allocatedBytes() {
+    if (threads instanceof com.sun.management.ThreadMXBean)
+      return ((com.sun.management.ThreadMXBean) threads)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    return -1;
+  }
+
+  /**
+   * Helper method dividing an allocation count, keeping -1 for unsupported counters
+   */
+  private double perOp(long allocated, int ops) {
+    return allocatedBytes() < 0 ? -1 : allocated / (double) ops;
+  }
+
+  /**
+   * Helper method printing one result
+   */
+  private void report(String structure, int vertices, int edges, String metric, double value) {
+    String number = value == Math.rint(value) ? String.valueOf((long) value)
+        : String.format(Locale.ROOT, "%.1f", value);
+    if (json)
+      out.println("{\"structure\":\"" + structure + "\",\"vertices\":" + vertices + ",\"edges\":"
+          + edges + ",\"metric\":\"" + metric + "\",\"value\":" + number + "}");
+    else
+      out.println(structure + "," + vertices + "," + edges + "," + metric + "," + number);
+  }
+
+  /**
+   * Runs the profiler: java GraphProfiler [--json] [--structure name ...] [vertices ...]
+   */
+  public static void main(String[] args) throws Exception {
+    boolean json = false;
+    List<String> structures = new ArrayList<String>();
+    List<Integer> sizes = new ArrayList<Integer>();
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--json"))
+        json = true;
+      else if (args[i].equals("--structure") && i + 1 < args.length)
+        structures.add(args[++i]);
+      else
+        sizes.add(Integer.parseInt(args[i]));
+    }
+    if (structures.isEmpty())
+      structures.addAll(Arrays.asList(STRUCTURES));
+    if (sizes.isEmpty()) {
+      sizes.add(1000);
+      sizes.add(10000);
+      sizes.add(100000);
+    }
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (gc.getName().equals("MarkSweepCompact"))
+        System.err.println("warning: the serial collector makes heap sizes unreliable, "
+            + "run with -XX:+UseParallelGC");
+    }
+    GraphProfiler profiler = new GraphProfiler(System.out, json);
+    if (!json)
+      System.out.println("structure,vertices,edges,metric,value");
+    for (int vertices : sizes) {
+      for (String structure : structures)
+        profiler.profile(structure, vertices);
+    }
+  }
+
+}
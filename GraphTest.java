@@ -14,8 +14,10 @@
 //////////////////////////////////////// CREDIT OUTSIDE HELP ///////////////////////////////////////
 import static org.junit.jupiter.api.Assertions.*;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Random;
 import java.util.Set;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -185,5 +187,117 @@ class GraphTest {
 
   }
 
-}
+  /**
+   * This method tests the removeVertices method of the graph. It checks whether removing several
+   * vertices at once leaves the same graph as removing them one by one
+   */
+  @Test
+  public void test006_removeVertices_removes_all_given_vertices() {
+    graph_filler(); // fills the graph with vertices and edges
+    verticeTest.add("A");
+    verticeTest.add("B");
+    verticeTest.add("C");
+    verticeTest.add("F");
+    verticeTest.add("H");
+    graphInstance.removeVertices(Arrays.asList("D", "E", "G", "Z", null));
+    // checks if the vertices set has been correctly updated
+    if (!graphInstance.getAllVertices().equals(verticeTest))
+      fail("Vertex list of is supposed to be: " + verticeTest + " and not "
+          + graphInstance.getAllVertices());
+    // only A->B and A->C are left
+    if (graphInstance.order() != 5 || graphInstance.size() != 2)
+      fail("graph should have order 5 and size 2, but order = " + graphInstance.order()
+          + " and size = " + graphInstance.size());
+    if (!graphInstance.getAdjacentVerticesOf("C").equals(adjListTest))
+      fail("Adjacent list of C is supposed to be: " + adjListTest + " and not "
+          + graphInstance.getAdjacentVerticesOf("C"));
+  }
 
+  /**
+   * This method checks that a graph in acyclic mode rejects the edges that would close a cycle
+   */
+  @Test
+  public void test007_acyclic_mode_rejects_cycles() throws Exception {
+    graphInstance = new Graph(true);
+    graphInstance.addEdge("A", "B");
+    graphInstance.addEdge("B", "C");
+    graphInstance.addEdge("C", "D");
+    try {
+      graphInstance.addEdgeChecked("D", "A");
+      fail("D->A closes the cycle A->B->C->D->A");
+    } catch (CycleException e) {
+      // expected
+    }
+    graphInstance.addEdge("C", "A"); // ignored without an exception
+    graphInstance.addEdge("B", "B");
+    if (graphInstance.size() != 3)
+      fail("only the 3 edges of the chain are allowed, but size = " + graphInstance.size());
+    graphInstance.removeEdge("B", "C");
+    graphInstance.addEdgeChecked("D", "A"); // no cycle once B->C is gone
+    if (!graphInstance.getAdjacentVerticesOf("D").contains("A"))
+      fail("D->A must be added after B->C was removed");
+  }
+
+  /**
+   * This method checks acyclic mode against a plain graph for random edges
+   */
+  @Test
+  public void test008_acyclic_mode_matches_plain_graph() {
+    graphInstance = new Graph(true);
+    Graph plain = new Graph();
+    Random rnd = new Random(37);
+    for (int i = 0; i < 2000; i++) {
+      String from = "p" + rnd.nextInt(60);
+      String to = "p" + rnd.nextInt(60);
+      boolean closesCycle = from.equals(to) || reaches(plain, to, from);
+      try {
+        graphInstance.addEdgeChecked(from, to);
+        if (closesCycle)
+          fail(from + "->" + to + " closes a cycle and must be rejected");
+        plain.addEdge(from, to);
+      } catch (CycleException e) {
+        if (!closesCycle)
+          fail(from + "->" + to + " does not close a cycle and must be added");
+      }
+      if (i % 100 == 0) { // removals must keep the reversed edges in step
+        graphInstance.removeVertex("p" + rnd.nextInt(60));
+        plain = copyOf(graphInstance);
+      }
+    }
+    if (graphInstance.size() != plain.size() || graphInstance.order() != plain.order())
+      fail("both graphs must have the same edges");
+  }
+
+  /**
+   * Helper method checking whether there is a path from one vertex to another
+   */
+  private static boolean reaches(Graph graph, String from, String to) {
+    if (!graph.getAllVertices().contains(from))
+      return false;
+    Set<String> seen = new HashSet<String>();
+    LinkedList<String> stack = new LinkedList<String>();
+    stack.push(from);
+    while (!stack.isEmpty()) {
+      String current = stack.pop();
+      if (current.equals(to))
+        return true;
+      if (seen.add(current))
+        stack.addAll(graph.getAdjacentVerticesOf(current));
+    }
+    return false;
+  }
+
+  /**
+   * Helper method copying a graph into a plain graph
+   */
+  private static Graph copyOf(Graph graph) {
+    Graph copy = new Graph();
+    for (String vertex : graph.getAllVertices()) {
+      copy.addVertex(vertex);
+      for (String neighbor : graph.getAdjacentVerticesOf(vertex))
+        copy.addEdge(vertex, neighbor);
+    }
+    return copy;
+  }
+
+}
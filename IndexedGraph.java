@@ -0,0 +1,234 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filename:   IndexedGraph.java
+ * Project:    p4
+ *
+ * An immutable snapshot of a GraphADT in which every vertex is given a dense integer id and the
+ * adjacency lists are packed into two int arrays (compressed sparse row layout). Whole-graph
+ * algorithms (reachability, closures, condensation) run on this snapshot instead of walking the
+ * HashMap and LinkedList structure of the live graph.
+ *
+ * The snapshot does not follow later changes to the graph it was built from.
+ */
+public class IndexedGraph {
+
+  private final String[] names; // vertex name by id, null for graphs built without names
+  private final HashMap<String, Integer> ids; // vertex id by name
+  // edges of vertex v are targets[offsets[v]] .. targets[offsets[v+1]-1]
+  private final int[] offsets;
+  private final int[] targets; // edge targets grouped by source vertex
+
+  /**
+   * Creates a snapshot from already packed arrays
+   *
+   * @param names   vertex names by id, may be null for unnamed graphs
+   * @param ids     vertex ids by name, may be null for unnamed graphs
+   * @param offsets edge offsets, of length order() + 1
+   * @param targets edge targets
+   */
+  IndexedGraph(String[] names, HashMap<String, Integer> ids, int[] offsets, int[] targets) {
+    this.names = names;
+    this.ids = ids;
+    this.offsets = offsets;
+    this.targets = targets;
+  }
+
+  /**
+   * This method builds a snapshot of the given graph in O(V+E).
+   *
+   * @param graph the graph to be indexed
+   * @return IndexedGraph the snapshot of the graph
+   */
+  public static IndexedGraph of(GraphADT graph) {
+    Set<String> vertices = graph.getAllVertices();
+    int n = vertices.size();
+    String[] names = new String[n];
+    HashMap<String, Integer> ids = new HashMap<String, Integer>(n * 2);
+
+    int id = 0;
+    for (String vertex : vertices) { // vertices are numbered in iteration order
+      names[id] = vertex;
+      ids.put(vertex, id);
+      id++;
+    }
+
+    int[] offsets = new int[n + 1];
+    int[] targets = new int[Math.max(graph.size(), 0)];
+    int edge = 0;
+    for (int v = 0; v < n; v++) {
+      offsets[v] = edge;
+      List<String> adj = graph.getAdjacentVerticesOf(names[v]);
+      if (adj == null)
+        continue;
+      for (String neighbor : adj) {
+        Integer target = ids.get(neighbor);
+        if (target == null) // edges to vertices outside the graph are ignored
+          continue;
+        if (edge == targets.length) // size() is only a hint, grow if it was too small
+          targets = Arrays.copyOf(targets, Math.max(16, targets.length * 2));
+        targets[edge++] = target;
+      }
+    }
+    offsets[n] = edge;
+    if (edge != targets.length)
+      targets = Arrays.copyOf(targets, edge);
+    return new IndexedGraph(names, ids, offsets, targets);
+  }
+
+  /**
+   * This method returns the number of vertices in the snapshot
+   *
+   * @return number of vertices
+   */
+  public int order() {
+    return offsets.length - 1;
+  }
+
+  /**
+   * This method returns the number of edges in the snapshot
+   *
+   * @return number of edges
+   */
+  public int size() {
+    return targets.length;
+  }
+
+  /**
+   * This method returns the id of a vertex
+   *
+   * @param vertex the name of the vertex
+   * @return the id of the vertex, or -1 if it is not in the snapshot
+   */
+  public int idOf(String vertex) {
+    if (vertex == null || ids == null)
+      return -1;
+    Integer id = ids.get(vertex);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * This method returns the name of a vertex
+   *
+   * @param id the id of the vertex
+   * @return the name of the vertex, or null if the snapshot has no names
+   */
+  public String nameOf(int id) {
+    return names == null ? null : names[id];
+  }
+
+  /**
+   * This method returns the number of outgoing edges of a vertex
+   *
+   * @param v the id of the vertex
+   * @return the out degree of v
+   */
+  public int outDegree(int v) {
+    return offsets[v + 1] - offsets[v];
+  }
+
+  /**
+   * This method returns the i-th adjacent vertex of a vertex
+   *
+   * @param v the id of the vertex
+   * @param i the position in the adjacency list of v, 0 <= i < outDegree(v)
+   * @return the id of the adjacent vertex
+   */
+  public int successor(int v, int i) {
+    return targets[offsets[v] + i];
+  }
+
+  /**
+   * This method returns a snapshot with the same ids in which every edge is reversed, i.e. the
+   * adjacency list of a package lists the packages that directly depend on it.
+   *
+   * @return IndexedGraph the reversed snapshot
+   */
+  public IndexedGraph reverse() {
+    int n = order();
+    int[] revOffsets = new int[n + 1];
+    for (int e = 0; e < targets.length; e++) // count in-degrees
+      revOffsets[targets[e] + 1]++;
+    for (int v = 0; v < n; v++) // prefix sums give the start of each list
+      revOffsets[v + 1] += revOffsets[v];
+    int[] fill = Arrays.copyOf(revOffsets, n);
+    int[] revTargets = new int[targets.length];
+    for (int v = 0; v < n; v++) {
+      for (int e = offsets[v]; e < offsets[v + 1]; e++)
+        revTargets[fill[targets[e]]++] = v;
+    }
+    return new IndexedGraph(names, ids, revOffsets, revTargets);
+  }
+
+  /**
+   * This method computes the strongly connected components of the snapshot (iterative Tarjan, so
+   * deep dependency chains cannot overflow the call stack) and the DAG between them.
+   *
+   * @return Condensation the condensation of this graph
+   */
+  public Condensation condense() {
+    int n = order();
+    int[] component = new int[n];
+    int[] index = new int[n];
+    int[] low = new int[n];
+    boolean[] onStack = new boolean[n];
+    int[] stack = new int[n]; // Tarjan's vertex stack
+    int sp = 0;
+    int[] callVertex = new int[n]; // explicit DFS call stack: vertex and next edge to visit
+    int[] callEdge = new int[n];
+    int counter = 0;
+    int components = 0;
+    Arrays.fill(index, -1);
+
+    for (int root = 0; root < n; root++) {
+      if (index[root] >= 0)
+        continue;
+      int cs = 0;
+      index[root] = low[root] = counter++;
+      stack[sp++] = root;
+      onStack[root] = true;
+      callVertex[cs] = root;
+      callEdge[cs] = offsets[root];
+      cs++;
+
+      while (cs > 0) {
+        int v = callVertex[cs - 1];
+        int e = callEdge[cs - 1];
+        if (e < offsets[v + 1]) { // visit the next neighbor of v
+          callEdge[cs - 1]++;
+          int w = targets[e];
+          if (index[w] < 0) { // not visited yet, descend
+            index[w] = low[w] = counter++;
+            stack[sp++] = w;
+            onStack[w] = true;
+            callVertex[cs] = w;
+            callEdge[cs] = offsets[w];
+            cs++;
+          } else if (onStack[w]) {
+            low[v] = Math.min(low[v], index[w]);
+          }
+        } else { // all neighbors of v are done
+          if (low[v] == index[v]) { // v is the root of a component, pop it
+            int w;
+            do {
+              w = stack[--sp];
+              onStack[w] = false;
+              component[w] = components;
+            } while (w != v);
+            components++;
+          }
+          cs--;
+          if (cs > 0) {
+            int parent = callVertex[cs - 1];
+            low[parent] = Math.min(low[parent], low[v]);
+          }
+        }
+      }
+    }
+    return new Condensation(this, component, components);
+  }
+
+}
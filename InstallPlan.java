@@ -0,0 +1,63 @@
+import java.util.List;
+
+/**
+ * Filename:   InstallPlan.java
+ * Project:    p4
+ *
+ * The steps that turn one environment into another, as computed by PlanDiff. Removals come first,
+ * ordered so that a package is removed before the packages it depends on. Then the packages in
+ * getInstallOrder are installed, each after all of its dependencies.
+ */
+public class InstallPlan {
+  private List<String> toInstall;
+  private List<String> toRemove;
+  private List<String> toReinstall;
+  private List<String> installOrder;
+
+  public InstallPlan(List<String> toInstall, List<String> toRemove, List<String> toReinstall,
+      List<String> installOrder) {
+    this.toInstall = toInstall;
+    this.toRemove = toRemove;
+    this.toReinstall = toReinstall;
+    this.installOrder = installOrder;
+  }
+
+  /**
+   * @return List<String> of packages that are new in the target environment, in installation
+   *         order
+   */
+  public List<String> getToInstall() {
+    return this.toInstall;
+  }
+
+  /**
+   * @return List<String> of packages that are no longer reachable from any target root, in
+   *         removal order
+   */
+  public List<String> getToRemove() {
+    return this.toRemove;
+  }
+
+  /**
+   * @return List<String> of packages kept from the current environment that have to be
+   *         reinstalled, in installation order
+   */
+  public List<String> getToReinstall() {
+    return this.toReinstall;
+  }
+
+  /**
+   * @return List<String> of all packages to install or reinstall, in one valid installation order
+   */
+  public List<String> getInstallOrder() {
+    return this.installOrder;
+  }
+
+  /**
+   * @return true if the current environment already matches the target
+   */
+  public boolean isEmpty() {
+    return toRemove.isEmpty() && installOrder.isEmpty();
+  }
+
+}
@@ -0,0 +1,108 @@
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filename:   InstallTimeEstimate.java
+ * Project:    p4
+ *
+ * The result of a CriticalPathAnalysis for one package. All times use the unit of the durations
+ * given to the analysis and count from the moment the installation starts, assuming a package
+ * starts as soon as all of its dependencies are installed and enough workers are available.
+ */
+public class InstallTimeEstimate {
+  private String target;
+  private long makespan;
+  private long totalWork;
+  private List<String> criticalPath;
+  private List<String> installOrder;
+  private Map<String, Long> earliestFinish;
+  private Map<String, Long> slack;
+
+  public InstallTimeEstimate(String target, long makespan, long totalWork,
+      List<String> criticalPath, List<String> installOrder, Map<String, Long> earliestFinish,
+      Map<String, Long> slack) {
+    this.target = target;
+    this.makespan = makespan;
+    this.totalWork = totalWork;
+    this.criticalPath = criticalPath;
+    this.installOrder = installOrder;
+    this.earliestFinish = earliestFinish;
+    this.slack = slack;
+  }
+
+  /**
+   * @return the package that was analyzed
+   */
+  public String getTarget() {
+    return this.target;
+  }
+
+  /**
+   * @return the minimum wall-clock time to install the target with unlimited parallelism
+   */
+  public long getMakespan() {
+    return this.makespan;
+  }
+
+  /**
+   * @return the sum of the durations of all packages, the time to install them one at a time
+   */
+  public long getTotalWork() {
+    return this.totalWork;
+  }
+
+  /**
+   * @return total work divided by the makespan, the upper bound on the speedup of a parallel
+   *         installation over a sequential one
+   */
+  public double getSpeedup() {
+    return makespan == 0 ? 1.0 : (double) totalWork / makespan;
+  }
+
+  /**
+   * @return List<String> of the packages on the longest path, in installation order and ending
+   *         with the target. Shortening any other package does not shorten the installation.
+   */
+  public List<String> getCriticalPath() {
+    return this.criticalPath;
+  }
+
+  /**
+   * @return List<String> of the target and all of its dependencies in a valid installation order
+   */
+  public List<String> getInstallOrder() {
+    return this.installOrder;
+  }
+
+  /**
+   * @param pkg a package in the installation order
+   * @return the earliest time pkg can finish installing
+   * @throws PackageNotFoundException if pkg is not in the installation order
+   */
+  public long getEarliestFinish(String pkg) throws PackageNotFoundException {
+    Long value = this.earliestFinish.get(pkg);
+    if (value == null)
+      throw new PackageNotFoundException();
+    return value;
+  }
+
+  /**
+   * @param pkg a package in the installation order
+   * @return how long pkg can be delayed without delaying the target, 0 on the critical path
+   * @throws PackageNotFoundException if pkg is not in the installation order
+   */
+  public long getSlack(String pkg) throws PackageNotFoundException {
+    Long value = this.slack.get(pkg);
+    if (value == null)
+      throw new PackageNotFoundException();
+    return value;
+  }
+
+  /**
+   * @return Map<String, Long> of the slack of every package in the installation order
+   */
+  public Map<String, Long> getSlack() {
+    return this.slack;
+  }
+
+}
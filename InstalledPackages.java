@@ -0,0 +1,210 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filename:   InstalledPackages.java
+ * Project:    p4
+ *
+ * Tracks which packages of a dependency graph are installed and which of them the user asked for
+ * explicitly (the roots). Everything else is installed only because some installed package needs
+ * it, and is removed automatically once nothing needs it anymore.
+ *
+ * Every installed package keeps a reference count: the number of installed packages that directly
+ * depend on it. Uninstalling a root only walks the packages whose count drops to zero, not the
+ * whole environment. Reference counts cannot free dependency cycles, so autoremove() performs a
+ * full mark and sweep from the roots to collect whatever the counts missed.
+ *
+ * The dependency list of a package is read from the graph when the package is installed and kept
+ * until it is removed, so later changes to the graph do not break the counts.
+ */
+public class InstalledPackages {
+
+  private final GraphADT graph; // the dependency graph
+  private final HashSet<String> roots; // explicitly installed packages
+  private final HashMap<String, List<String>> installed; // dependencies used at install time
+  private final HashMap<String, Integer> refCounts; // installed direct dependents per package
+
+  /**
+   * Creates an empty environment for a graph
+   *
+   * @param graph the dependency graph
+   */
+  public InstalledPackages(GraphADT graph) {
+    this.graph = graph;
+    this.roots = new HashSet<String>();
+    this.installed = new HashMap<String, List<String>>();
+    this.refCounts = new HashMap<String, Integer>();
+  }
+
+  /**
+   * This method installs a package explicitly, together with any of its dependencies that are not
+   * installed yet
+   *
+   * @param pkg the package requested by the user
+   * @return List<String> of the newly installed packages
+   * @throws PackageNotFoundException if the package is not in the graph
+   */
+  public List<String> install(String pkg) throws PackageNotFoundException {
+    if (!graph.getAllVertices().contains(pkg))
+      throw new PackageNotFoundException();
+    roots.add(pkg);
+    List<String> added = new ArrayList<String>();
+    if (installed.containsKey(pkg))
+      return added; // already there as a dependency, it is only marked as root
+
+    ArrayDeque<String> stack = new ArrayDeque<String>();
+    markInstalled(pkg, added, stack);
+    while (!stack.isEmpty()) {
+      for (String dependency : installed.get(stack.pop())) {
+        refCounts.put(dependency, refCounts.get(dependency) == null ? 1
+            : refCounts.get(dependency) + 1);
+        if (!installed.containsKey(dependency))
+          markInstalled(dependency, added, stack);
+      }
+    }
+    return added;
+  }
+
+  /**
+   * Helper method recording a newly installed package and its current dependency list
+   */
+  private void markInstalled(String pkg, List<String> added, ArrayDeque<String> stack) {
+    List<String> dependencies = graph.getAdjacentVerticesOf(pkg);
+    installed.put(pkg, dependencies == null ? Collections.<String>emptyList()
+        : new ArrayList<String>(dependencies));
+    if (!refCounts.containsKey(pkg))
+      refCounts.put(pkg, 0);
+    added.add(pkg);
+    stack.push(pkg);
+  }
+
+  /**
+   * This method uninstalls an explicitly installed package. The package stays installed if other
+   * installed packages still need it. Every package that is no longer needed by anything is
+   * removed with it.
+   *
+   * @param pkg the root to be uninstalled
+   * @return List<String> of the removed packages, dependents before their dependencies
+   */
+  public List<String> uninstall(String pkg) {
+    List<String> removed = new ArrayList<String>();
+    if (!roots.remove(pkg))
+      return removed; // not explicitly installed
+    ArrayDeque<String> queue = new ArrayDeque<String>();
+    if (refCounts.get(pkg) == 0)
+      queue.add(pkg);
+    while (!queue.isEmpty()) { // only packages whose count reached zero are visited
+      String current = queue.poll();
+      removed.add(current);
+      refCounts.remove(current);
+      for (String dependency : installed.remove(current)) {
+        int count = refCounts.get(dependency) - 1;
+        refCounts.put(dependency, count);
+        if (count == 0 && !roots.contains(dependency))
+          queue.add(dependency);
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * This method removes every installed package that is not reachable from a root, including
+   * orphaned dependency cycles that the reference counts cannot free
+   *
+   * @return Set<String> of the removed packages
+   */
+  public Set<String> autoremove() {
+    // mark
+    HashSet<String> reachable = new HashSet<String>();
+    ArrayDeque<String> stack = new ArrayDeque<String>();
+    for (String root : roots) {
+      if (reachable.add(root))
+        stack.push(root);
+    }
+    while (!stack.isEmpty()) {
+      for (String dependency : installed.get(stack.pop())) {
+        if (reachable.add(dependency))
+          stack.push(dependency);
+      }
+    }
+
+    // sweep in one batch, then fix the counts of the packages that stay
+    HashSet<String> swept = new HashSet<String>();
+    for (String pkg : installed.keySet()) {
+      if (!reachable.contains(pkg))
+        swept.add(pkg);
+    }
+    for (String pkg : swept) {
+      for (String dependency : installed.remove(pkg)) {
+        if (!swept.contains(dependency))
+          refCounts.put(dependency, refCounts.get(dependency) - 1);
+      }
+    }
+    refCounts.keySet().removeAll(swept);
+    return swept;
+  }
+
+  /**
+   * This method removes every vertex of a graph that is not reachable from the given roots, in a
+   * single batch
+   *
+   * @param graph the graph to be cleaned up
+   * @param roots the packages to keep together with their dependencies
+   * @return Set<String> of the removed vertices
+   */
+  public static Set<String> sweep(Graph graph, Collection<String> roots) {
+    HashSet<String> reachable = new HashSet<String>();
+    ArrayDeque<String> stack = new ArrayDeque<String>();
+    for (String root : roots) {
+      if (graph.getAllVertices().contains(root) && reachable.add(root))
+        stack.push(root);
+    }
+    while (!stack.isEmpty()) {
+      for (String dependency : graph.getAdjacentVerticesOf(stack.pop())) {
+        if (reachable.add(dependency))
+          stack.push(dependency);
+      }
+    }
+    HashSet<String> swept = new HashSet<String>(graph.getAllVertices());
+    swept.removeAll(reachable);
+    graph.removeVertices(swept);
+    return swept;
+  }
+
+  /**
+   * @param pkg the package name
+   * @return true if the package is installed, explicitly or as a dependency
+   */
+  public boolean isInstalled(String pkg) {
+    return installed.containsKey(pkg);
+  }
+
+  /**
+   * @param pkg the package name
+   * @return true if the package was installed explicitly
+   */
+  public boolean isRoot(String pkg) {
+    return roots.contains(pkg);
+  }
+
+  /**
+   * @return Set<String> of all installed packages
+   */
+  public Set<String> getInstalled() {
+    return Collections.unmodifiableSet(installed.keySet());
+  }
+
+  /**
+   * @return Set<String> of the explicitly installed packages
+   */
+  public Set<String> getRoots() {
+    return Collections.unmodifiableSet(roots);
+  }
+
+}
@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for InstalledPackages
+ */
+class InstalledPackagesTest {
+  private Graph graphInstance; // the dependency graph used by every test
+  private InstalledPackages installedInstance; // the environment under test
+
+  /**
+   * This method runs before every test method and builds the graph
+   * A->[B, C], B->[D], C->[D], E->[D]
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new Graph();
+    graphInstance.addEdge("A", "B");
+    graphInstance.addEdge("A", "C");
+    graphInstance.addEdge("B", "D");
+    graphInstance.addEdge("C", "D");
+    graphInstance.addEdge("E", "D");
+    installedInstance = new InstalledPackages(graphInstance);
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    graphInstance = null;
+    installedInstance = null;
+  }
+
+  /**
+   * This method checks that uninstalling a root removes the dependencies nobody else needs
+   */
+  @Test
+  public void test001_uninstall_removes_unneeded_dependencies() throws Exception {
+    installedInstance.install("A");
+    installedInstance.install("E");
+    List<String> removed = installedInstance.uninstall("A");
+    if (!new HashSet<String>(removed).equals(new HashSet<String>(Arrays.asList("A", "B", "C"))))
+      fail("A, B and C should be removed, D is still needed by E, but got " + removed);
+    if (!installedInstance.isInstalled("D") || installedInstance.isRoot("D"))
+      fail("D stays installed as a dependency");
+    installedInstance.uninstall("E");
+    if (!installedInstance.getInstalled().isEmpty())
+      fail("nothing is left after the last root is uninstalled");
+  }
+
+  /**
+   * This method checks that a root which is also a dependency stays until both reasons are gone
+   */
+  @Test
+  public void test002_root_that_is_also_a_dependency() throws Exception {
+    installedInstance.install("A");
+    if (!installedInstance.install("B").isEmpty())
+      fail("B is already installed and only becomes a root");
+    installedInstance.uninstall("B");
+    if (!installedInstance.isInstalled("B"))
+      fail("A still needs B");
+    installedInstance.uninstall("A");
+    if (installedInstance.isInstalled("B") || installedInstance.isInstalled("D"))
+      fail("B and D are orphans once A is gone");
+  }
+
+  /**
+   * This method checks that autoremove collects an orphaned cycle
+   */
+  @Test
+  public void test003_autoremove_collects_cycles() throws Exception {
+    graphInstance.addEdge("F", "G");
+    graphInstance.addEdge("G", "F");
+    installedInstance.install("E");
+    installedInstance.install("F");
+    installedInstance.uninstall("F");
+    if (!installedInstance.isInstalled("G"))
+      fail("reference counts alone cannot free the cycle");
+    if (!installedInstance.autoremove().equals(new HashSet<String>(Arrays.asList("F", "G"))))
+      fail("F and G are unreachable from the roots");
+    if (!installedInstance.getInstalled().equals(new HashSet<String>(Arrays.asList("E", "D"))))
+      fail("E and D must stay, but got " + installedInstance.getInstalled());
+  }
+
+  /**
+   * This method checks sweeping unreachable vertices out of the graph itself
+   */
+  @Test
+  public void test004_sweep_graph() {
+    InstalledPackages.sweep(graphInstance, Arrays.asList("B"));
+    if (!graphInstance.getAllVertices().equals(new HashSet<String>(Arrays.asList("B", "D"))))
+      fail("only B and D are reachable, but the graph has " + graphInstance.getAllVertices());
+    if (graphInstance.size() != 1)
+      fail("only the edge B->D is left, but size = " + graphInstance.size());
+  }
+
+}
@@ -0,0 +1,478 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Filename:   OffHeapGraph.java
+ * Project:    p4
+ *
+ * A directed and unweighted graph that keeps all of its data outside of the Java heap, so that a
+ * resolver holding a huge registry does not pay for it in garbage collection pauses.
+ *
+ * Everything lives in direct ByteBuffers made of fixed size int records:
+ * - names: the UTF-8 bytes of every vertex name, prefixed with their length (append only)
+ * - vertices: one record per vertex id: name offset, name hash, first edge, last edge, degree
+ * - edges: one record per edge: target vertex id, next edge of the same list
+ * - table: open addressing hash table from name hash to vertex id
+ *
+ * The heap only holds the buffer objects, a handful of counters and the short lived Strings and
+ * lists returned by the GraphADT methods. Each buffer can grow up to 2 GB. Removed vertices and
+ * edges are reused, the name bytes of removed vertices are not.
+ */
+public class OffHeapGraph implements GraphADT {
+
+  private static final int NONE = -1; // null pointer for ids and edges
+  private static final int DELETED = -2; // hash table slot of a removed vertex
+
+  private static final int VERTEX_BYTES = 20; // size of a vertex record
+  private static final int NAME = 0; // offset of the name in the names buffer, NONE if removed
+  private static final int HASH = 4; // hash of the name
+  private static final int FIRST = 8; // first edge, or next free id for removed vertices
+  private static final int LAST = 12; // last edge
+  private static final int DEGREE = 16; // number of edges
+
+  private static final int EDGE_BYTES = 8; // size of an edge record
+  private static final int TARGET = 0; // target vertex id
+  private static final int NEXT = 4; // next edge in the list, or next free edge
+
+  private ByteBuffer names; // length prefixed UTF-8 names
+  private int namesEnd; // first unused byte of names
+  private ByteBuffer vertices; // vertex records by id
+  private int nextId; // lowest id never used
+  private int freeVertex; // head of the list of removed ids
+  private ByteBuffer edges; // edge records
+  private int nextEdge; // lowest edge never used
+  private int freeEdge; // head of the list of removed edges
+  private ByteBuffer table; // int slots: vertex id, NONE if empty, DELETED if removed
+  private int tableSlots; // number of slots, a power of two
+  private int tableUsed; // number of slots that are not empty
+  private int numVertices; // number of vertices in the graph
+  private int numEdges; // number of edges in the graph
+
+  /**
+   * This creates an empty graph with room for about a thousand vertices before the first resize
+   */
+  public OffHeapGraph() {
+    this(1024);
+  }
+
+  /**
+   * This creates an empty graph sized for the expected number of vertices
+   *
+   * @param expectedVertices number of vertices to allocate room for
+   */
+  public OffHeapGraph(int expectedVertices) {
+    int capacity = Math.max(16, expectedVertices);
+    names = ByteBuffer.allocateDirect(capacity * 16);
+    vertices = ByteBuffer.allocateDirect(capacity * VERTEX_BYTES);
+    edges = ByteBuffer.allocateDirect(capacity * 2 * EDGE_BYTES);
+    tableSlots = Integer.highestOneBit(capacity * 2 - 1) << 1;
+    table = newTable(tableSlots);
+    namesEnd = 0;
+    nextId = 0;
+    freeVertex = NONE;
+    nextEdge = 0;
+    freeEdge = NONE;
+    tableUsed = 0;
+    numVertices = 0;
+    numEdges = 0;
+  }
+
+  /**
+   * This method adds a new vertex to the graph. If vertex is null or already exists, method ends
+   * without adding a vertex or throwing an exception.
+   *
+   * @param vertex must not be null and should not be already present in the graph
+   */
+  public void addVertex(String vertex) {
+    if (vertex == null || find(vertex) != NONE)
+      return;
+    byte[] bytes = vertex.getBytes(StandardCharsets.UTF_8);
+
+    // rehash before the record of the new vertex exists, so that only insertSlot adds its id
+    if ((tableUsed + 1) * 4L > tableSlots * 3L) // keep the table at most 3/4 full
+      rehash(numVertices * 4 > tableSlots ? tableSlots * 2 : tableSlots);
+
+    // copy the name
+    if (namesEnd + 4 + bytes.length > names.capacity())
+      names = grow(names, namesEnd + 4 + bytes.length);
+    names.putInt(namesEnd, bytes.length);
+    ByteBuffer target = names.duplicate();
+    target.position(namesEnd + 4);
+    target.put(bytes);
+
+    // take a free id or a new one
+    int id;
+    if (freeVertex != NONE) {
+      id = freeVertex;
+      freeVertex = vertices.getInt(id * VERTEX_BYTES + FIRST);
+    } else {
+      id = nextId++;
+      if ((long) nextId * VERTEX_BYTES > vertices.capacity())
+        vertices = grow(vertices, nextId * VERTEX_BYTES);
+    }
+    int record = id * VERTEX_BYTES;
+    int hash = hash(vertex);
+    vertices.putInt(record + NAME, namesEnd);
+    vertices.putInt(record + HASH, hash);
+    vertices.putInt(record + FIRST, NONE);
+    vertices.putInt(record + LAST, NONE);
+    vertices.putInt(record + DEGREE, 0);
+    namesEnd += 4 + bytes.length;
+
+    insertSlot(id, hash);
+    numVertices++;
+  }
+
+  /**
+   * This method removes a vertex and all associated edges from the graph. If vertex is null or
+   * does not exist, method ends without removing a vertex, edges, or throwing an exception.
+   *
+   * @param vertex should not be null and should be in the graph
+   */
+  public void removeVertex(String vertex) {
+    int id = find(vertex);
+    if (id == NONE)
+      return;
+    int record = id * VERTEX_BYTES;
+
+    // free the outgoing edges
+    int e = vertices.getInt(record + FIRST);
+    while (e != NONE) {
+      int next = edges.getInt(e * EDGE_BYTES + NEXT);
+      freeEdge(e);
+      e = next;
+    }
+    numEdges -= vertices.getInt(record + DEGREE);
+
+    // unlink the incoming edges from every other list
+    for (int v = 0; v < nextId; v++) {
+      if (v == id || vertices.getInt(v * VERTEX_BYTES + NAME) == NONE)
+        continue;
+      if (unlink(v, id))
+        numEdges--;
+    }
+
+    table.putInt(slotOf(id, vertices.getInt(record + HASH)) * 4, DELETED);
+    vertices.putInt(record + NAME, NONE);
+    vertices.putInt(record + FIRST, freeVertex);
+    freeVertex = id;
+    numVertices--;
+  }
+
+  /**
+   * This method adds the edge from vertex1 to vertex2 to this graph. If either vertex does not
+   * exist, it is added to the graph first. If the edge exists in the graph, no edge is added and no
+   * exception is thrown.
+   *
+   * @param vertex1 the source vertex, must not be null
+   * @param vertex2 the destination vertex, must not be null
+   */
+  public void addEdge(String vertex1, String vertex2) {
+    if (vertex1 == null || vertex2 == null)
+      return;
+    addVertex(vertex1);
+    addVertex(vertex2);
+    int from = find(vertex1);
+    int to = find(vertex2);
+    int record = from * VERTEX_BYTES;
+    for (int e = vertices.getInt(record + FIRST); e != NONE; e = edges.getInt(e * EDGE_BYTES
+        + NEXT)) {
+      if (edges.getInt(e * EDGE_BYTES + TARGET) == to)
+        return; // edge already present
+    }
+
+    int edge;
+    if (freeEdge != NONE) {
+      edge = freeEdge;
+      freeEdge = edges.getInt(edge * EDGE_BYTES + NEXT);
+    } else {
+      edge = nextEdge++;
+      if ((long) nextEdge * EDGE_BYTES > edges.capacity())
+        edges = grow(edges, nextEdge * EDGE_BYTES);
+    }
+    edges.putInt(edge * EDGE_BYTES + TARGET, to);
+    edges.putInt(edge * EDGE_BYTES + NEXT, NONE);
+
+    // append to keep the insertion order of Graph
+    int last = vertices.getInt(record + LAST);
+    if (last == NONE)
+      vertices.putInt(record + FIRST, edge);
+    else
+      edges.putInt(last * EDGE_BYTES + NEXT, edge);
+    vertices.putInt(record + LAST, edge);
+    vertices.putInt(record + DEGREE, vertices.getInt(record + DEGREE) + 1);
+    numEdges++;
+  }
+
+  /**
+   * This method removes the edge from vertex1 to vertex2 from this graph. If either vertex does not
+   * exist, or if an edge from vertex1 to vertex2 does not exist, no edge is removed and no
+   * exception is thrown.
+   *
+   * @param vertex1 the source vertex
+   * @param vertex2 the destination vertex
+   */
+  public void removeEdge(String vertex1, String vertex2) {
+    int from = find(vertex1);
+    int to = find(vertex2);
+    if (from == NONE || to == NONE)
+      return;
+    if (unlink(from, to))
+      numEdges--;
+  }
+
+  /**
+   * This method returns a read only view of all vertices. Membership checks use the off-heap hash
+   * table and iteration decodes the names one at a time.
+   *
+   * @return Set<String> of all vertices
+   */
+  public Set<String> getAllVertices() {
+    return new AbstractSet<String>() {
+      @Override
+      public int size() {
+        return numVertices;
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return o instanceof String && find((String) o) != NONE;
+      }
+
+      @Override
+      public Iterator<String> iterator() {
+        return new Iterator<String>() {
+          private int next = advance(0);
+
+          private int advance(int id) { // skip removed ids
+            while (id < nextId && vertices.getInt(id * VERTEX_BYTES + NAME) == NONE)
+              id++;
+            return id;
+          }
+
+          public boolean hasNext() {
+            return next < nextId;
+          }
+
+          public String next() {
+            if (!hasNext())
+              throw new NoSuchElementException();
+            String name = nameOf(next);
+            next = advance(next + 1);
+            return name;
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * This method decodes the neighbors of a vertex into a new list, in insertion order
+   *
+   * @return List<String> of the neighbors, or null if the vertex does not exist
+   */
+  public List<String> getAdjacentVerticesOf(String vertex) {
+    int id = find(vertex);
+    if (id == NONE)
+      return null;
+    int record = id * VERTEX_BYTES;
+    List<String> neighbors = new ArrayList<String>(vertices.getInt(record + DEGREE));
+    for (int e = vertices.getInt(record + FIRST); e != NONE; e = edges.getInt(e * EDGE_BYTES
+        + NEXT))
+      neighbors.add(nameOf(edges.getInt(e * EDGE_BYTES + TARGET)));
+    return neighbors;
+  }
+
+  /**
+   * This method returns the number of edges (size) in this graph.
+   *
+   * @return number of edges
+   */
+  public int size() {
+    return numEdges;
+  }
+
+  /**
+   * This method returns the number of vertices (order) in this graph.
+   *
+   * @return number of vertices
+   */
+  public int order() {
+    return numVertices;
+  }
+
+  /**
+   * This method returns the number of bytes reserved outside of the heap
+   *
+   * @return total capacity of the direct buffers
+   */
+  public long offHeapBytes() {
+    return (long) names.capacity() + vertices.capacity() + edges.capacity() + table.capacity();
+  }
+
+  /**
+   * Helper method to find the id of a vertex
+   *
+   * @return the id, or NONE if the vertex does not exist
+   */
+  private int find(String vertex) {
+    if (vertex == null)
+      return NONE;
+    int hash = hash(vertex);
+    byte[] bytes = null; // only encoded when a hash matches
+    int mask = tableSlots - 1;
+    for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+      int id = table.getInt(slot * 4);
+      if (id == NONE)
+        return NONE;
+      if (id >= 0 && vertices.getInt(id * VERTEX_BYTES + HASH) == hash) {
+        if (bytes == null)
+          bytes = vertex.getBytes(StandardCharsets.UTF_8);
+        if (nameEquals(id, bytes))
+          return id;
+      }
+    }
+  }
+
+  /**
+   * Helper method comparing the stored name of a vertex with encoded bytes
+   */
+  private boolean nameEquals(int id, byte[] bytes) {
+    int offset = vertices.getInt(id * VERTEX_BYTES + NAME);
+    if (names.getInt(offset) != bytes.length)
+      return false;
+    for (int i = 0; i < bytes.length; i++) {
+      if (names.get(offset + 4 + i) != bytes[i])
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Helper method decoding the name of a vertex
+   */
+  private String nameOf(int id) {
+    int offset = vertices.getInt(id * VERTEX_BYTES + NAME);
+    byte[] bytes = new byte[names.getInt(offset)];
+    ByteBuffer source = names.duplicate();
+    source.position(offset + 4);
+    source.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Helper method removing the edge from one vertex to another
+   *
+   * @return true if the edge existed
+   */
+  private boolean unlink(int from, int to) {
+    int record = from * VERTEX_BYTES;
+    int previous = NONE;
+    for (int e = vertices.getInt(record + FIRST); e != NONE; e = edges.getInt(e * EDGE_BYTES
+        + NEXT)) {
+      if (edges.getInt(e * EDGE_BYTES + TARGET) != to) {
+        previous = e;
+        continue;
+      }
+      int next = edges.getInt(e * EDGE_BYTES + NEXT);
+      if (previous == NONE)
+        vertices.putInt(record + FIRST, next);
+      else
+        edges.putInt(previous * EDGE_BYTES + NEXT, next);
+      if (next == NONE)
+        vertices.putInt(record + LAST, previous);
+      vertices.putInt(record + DEGREE, vertices.getInt(record + DEGREE) - 1);
+      freeEdge(e);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Helper method putting an edge record on the free list
+   */
+  private void freeEdge(int e) {
+    edges.putInt(e * EDGE_BYTES + NEXT, freeEdge);
+    freeEdge = e;
+  }
+
+  /**
+   * Helper method returning the table slot holding an id
+   */
+  private int slotOf(int id, int hash) {
+    int mask = tableSlots - 1;
+    int slot = hash & mask;
+    while (table.getInt(slot * 4) != id)
+      slot = (slot + 1) & mask;
+    return slot;
+  }
+
+  /**
+   * Helper method storing an id in the first free slot of its probe sequence
+   */
+  private void insertSlot(int id, int hash) {
+    int mask = tableSlots - 1;
+    int slot = hash & mask;
+    while (table.getInt(slot * 4) >= 0)
+      slot = (slot + 1) & mask;
+    if (table.getInt(slot * 4) == NONE) // reusing a DELETED slot does not use up a new one
+      tableUsed++;
+    table.putInt(slot * 4, id);
+  }
+
+  /**
+   * Helper method rebuilding the hash table, which also drops the DELETED slots
+   */
+  private void rehash(int slots) {
+    table = newTable(slots);
+    tableSlots = slots;
+    tableUsed = 0;
+    for (int id = 0; id < nextId; id++) {
+      int record = id * VERTEX_BYTES;
+      if (vertices.getInt(record + NAME) != NONE)
+        insertSlot(id, vertices.getInt(record + HASH));
+    }
+  }
+
+  /**
+   * Helper method allocating an empty hash table
+   */
+  private static ByteBuffer newTable(int slots) {
+    ByteBuffer table = ByteBuffer.allocateDirect(slots * 4);
+    for (int slot = 0; slot < slots; slot++)
+      table.putInt(slot * 4, NONE);
+    return table;
+  }
+
+  /**
+   * Helper method spreading the bits of String.hashCode
+   */
+  private static int hash(String vertex) {
+    int h = vertex.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Helper method copying a buffer into one at least twice as large
+   */
+  private static ByteBuffer grow(ByteBuffer old, int minCapacity) {
+    long capacity = Math.max((long) minCapacity, old.capacity() * 2L);
+    if (capacity > Integer.MAX_VALUE - 8)
+      capacity = Integer.MAX_VALUE - 8;
+    if (capacity < minCapacity)
+      throw new IllegalStateException("off-heap graph buffer is full");
+    ByteBuffer bigger = ByteBuffer.allocateDirect((int) capacity);
+    ByteBuffer source = old.duplicate();
+    source.clear();
+    bigger.put(source);
+    bigger.clear();
+    return bigger;
+  }
+
+}
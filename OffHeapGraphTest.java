@@ -0,0 +1,169 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the OffHeapGraph implementation
+ */
+class OffHeapGraphTest {
+  private OffHeapGraph graphInstance; // the instance of the graph which will be used for testing
+  private Set<String> verticeTest; // the instance of a set used for checking the vertex list
+
+  /**
+   * This method runs before every test method
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new OffHeapGraph(4); // small, so that the tests exercise the resizing
+    verticeTest = new HashSet<String>();
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    graphInstance = null;
+    verticeTest = null;
+  }
+
+  /**
+   * Helper method to fill a graph instance with vertices and edges, same as in GraphTest
+   */
+  private void graph_filler(GraphADT graph) {
+    graph.addEdge("A", "B");
+    graph.addEdge("A", "C");
+    graph.addEdge("C", "D");
+    graph.addEdge("D", "E");
+    graph.addVertex("F");
+    graph.addEdge("D", "G");
+    graph.addEdge("E", "G");
+    graph.addVertex("H");
+  }
+
+  /**
+   * This method checks the adjacency lists, order and size after inserting edges
+   */
+  @Test
+  public void test001_insert_edges_and_check_adjacent_list_of_vertices() {
+    graph_filler(graphInstance);
+    graphInstance.addEdge("D", "E"); // duplicate edge is ignored
+    graphInstance.addEdge(null, "E"); // null vertex is ignored
+    if (!graphInstance.getAdjacentVerticesOf("D").equals(Arrays.asList("E", "G")))
+      fail("Adjacent list of D is supposed to be [E, G] and not "
+          + graphInstance.getAdjacentVerticesOf("D"));
+    if (graphInstance.order() != 8 || graphInstance.size() != 6)
+      fail("graph should have order 8 and size 6, but order = " + graphInstance.order()
+          + " and size = " + graphInstance.size());
+    if (graphInstance.getAdjacentVerticesOf("Z") != null)
+      fail("Z is not in the graph");
+  }
+
+  /**
+   * This method checks that removing vertices and edges keeps the lists and counters consistent
+   */
+  @Test
+  public void test002_remove_vertex_and_edge() {
+    graph_filler(graphInstance);
+    graphInstance.removeVertex("G");
+    graphInstance.removeEdge("A", "B");
+    graphInstance.addEdge("D", "Z"); // Z takes the record of G
+    verticeTest.addAll(Arrays.asList("A", "B", "C", "D", "E", "F", "H", "Z"));
+    if (!new HashSet<String>(graphInstance.getAllVertices()).equals(verticeTest))
+      fail("Vertex list of is supposed to be: " + verticeTest + " and not "
+          + graphInstance.getAllVertices());
+    if (!graphInstance.getAdjacentVerticesOf("D").equals(Arrays.asList("E", "Z"))
+        || !graphInstance.getAdjacentVerticesOf("E").isEmpty())
+      fail("the edges to G must be gone and Z appended to D");
+    if (graphInstance.size() != 4 || graphInstance.getAllVertices().contains("G"))
+      fail("graph should have a size of 4 without G, but size = " + graphInstance.size());
+  }
+
+  /**
+   * This method checks a graph large enough to grow every buffer several times
+   */
+  @Test
+  public void test003_many_vertices_with_unicode_names() {
+    for (int i = 0; i < 5000; i++)
+      graphInstance.addEdge("@org/pkg-\u00e9" + i, "@org/pkg-\u00e9" + (i / 2));
+    for (int i = 0; i < 5000; i += 3)
+      graphInstance.removeVertex("@org/pkg-\u00e9" + (i + 2500));
+    if (graphInstance.order() != 5000 - 834)
+      fail("graph should have 4166 vertices and not " + graphInstance.order());
+    if (!graphInstance.getAdjacentVerticesOf("@org/pkg-\u00e91001").equals(
+        Arrays.asList("@org/pkg-\u00e9500")))
+      fail("wrong neighbors " + graphInstance.getAdjacentVerticesOf("@org/pkg-\u00e91001"));
+    if (graphInstance.offHeapBytes() <= 0)
+      fail("the graph must report its off-heap buffers");
+  }
+
+  /**
+   * This method checks that the PackageManager resolves the same order on both storages
+   */
+  @Test
+  public void test004_package_manager_on_off_heap_graph() throws Exception {
+    Graph graph = new Graph();
+    graph_filler(graph);
+    graph_filler(graphInstance);
+    if (!new PackageManager(graphInstance).getInstallationOrder("A")
+        .equals(new PackageManager(graph).getInstallationOrder("A")))
+      fail("both storages must produce the same installation order");
+  }
+
+  /**
+   * This method checks removing and adding vertices again after the hash table grew, and a random
+   * mix of additions and removals against Graph
+   */
+  @Test
+  public void test005_remove_and_add_again_across_table_growth() {
+    OffHeapGraph graph = new OffHeapGraph(16);
+    for (int i = 0; i <= 24; i++) // v24 is added by the insertion that grows the table
+      graph.addVertex("v" + i);
+    graph.removeVertex("v24");
+    if (graph.getAllVertices().contains("v24") || graph.order() != 24)
+      fail("v24 was removed");
+    graph.addVertex("v24");
+    if (!graph.getAllVertices().contains("v24") || graph.order() != 25)
+      fail("v24 was added again");
+
+    Graph expected = new Graph();
+    graph = new OffHeapGraph(16);
+    Random random = new Random(42);
+    for (int i = 0; i < 5000; i++) {
+      String from = "p" + random.nextInt(200);
+      String to = "p" + random.nextInt(200);
+      if (from.equals(to)) // Graph.removeVertex counts a self loop twice in its size
+        continue;
+      switch (random.nextInt(4)) {
+        case 0:
+          expected.addEdge(from, to);
+          graph.addEdge(from, to);
+          break;
+        case 1:
+          expected.removeEdge(from, to);
+          graph.removeEdge(from, to);
+          break;
+        case 2:
+          expected.removeVertex(from);
+          graph.removeVertex(from);
+          break;
+        default:
+          expected.addVertex(from);
+          graph.addVertex(from);
+      }
+    }
+    if (!new HashSet<String>(graph.getAllVertices()).equals(expected.getAllVertices())
+        || graph.size() != expected.size())
+      fail("the vertices and edges must match Graph after the same changes");
+    for (String vertex : expected.getAllVertices()) {
+      if (!graph.getAdjacentVerticesOf(vertex).equals(expected.getAdjacentVerticesOf(vertex)))
+        fail("neighbors of " + vertex + " differ from Graph");
+    }
+  }
+
+}
@@ -6,8 +6,11 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
@@ -35,7 +38,11 @@ import org.json.simple.parser.ParseException;
 
 public class PackageManager {
 
-  private Graph graph;
+  private GraphADT graph;
+  private boolean acyclic; // true if the graph rejects cycles itself, reads skip cycle checks
+  private volatile ReachabilityIndex reachability; // built on the first dependsOn query
+  private volatile ClosureFingerprints fingerprints; // built on first use, updated per edge
+  private PackageNameTable names = new PackageNameTable(); // one String per package name
 
   /*
    * Package Manager default no-argument constructor.
@@ -44,6 +51,22 @@ public class PackageManager {
     graph = new Graph();
   }
 
+  /**
+   * Package Manager constructor for a different graph storage, e.g. a CompressedGraph for large
+   * registries. constructGraph adds the packages to the given graph.
+   * 
+   * With a Graph in acyclic mode no resolution checks for cycles and no CycleException is thrown
+   * by them, constructGraph reports dependencies that would close a cycle instead.
+   * 
+   * @param graph the graph that stores the packages
+   */
+  public PackageManager(GraphADT graph) {
+    this.graph = graph;
+    this.acyclic = graph instanceof Graph && ((Graph) graph).isAcyclicMode();
+    for (String pkg : graph.getAllVertices()) // packages already in the graph
+      names.canonical(pkg);
+  }
+
   /**
    * Takes in a file path for a json file and builds the package dependency graph from it.
    * 
@@ -51,9 +74,13 @@ public class PackageManager {
    * @throws FileNotFoundException if file path is incorrect
    * @throws IOException           if the give file cannot be read
    * @throws ParseException        if the given json cannot be parsed
+   * @throws CycleException         if the graph is in acyclic mode and a dependency would close a
+   *                                cycle. Every other package and dependency is still loaded.
    */
   public void constructGraph(String jsonFilepath)
-      throws FileNotFoundException, IOException, ParseException {
+      throws FileNotFoundException, IOException, ParseException, CycleException {
+    reachability = null; // the graph is about to change
+    fingerprints = null;
     // parsing file "JSONExample.json"
     Object obj = new JSONParser().parse(new FileReader(jsonFilepath));
 
@@ -63,13 +90,17 @@ public class PackageManager {
     // Get array of packages
     JSONArray packages = (JSONArray) jo.get("packages");
     Iterator pkgItr = packages.iterator();
+    CycleException rejected = null; // first dependency the acyclic graph refused
 
     // Iterate through packages
     while (pkgItr.hasNext()) {
       // Current package JSON Object
       JSONObject current = (JSONObject) pkgItr.next();
 
-      String currentVertex = (String) current.get("name");
+      String name = (String) current.get("name");
+      if (name == null) // a package without a name cannot be added, like addVertex(null)
+        continue;
+      String currentVertex = names.canonical(name);
 
       graph.addVertex(currentVertex); // Add package to graph
 
@@ -78,11 +109,27 @@ public class PackageManager {
       Iterator dependency_itr = dependencies.iterator();
 
       // Iterate through dependencies
+      List<String> currentDependencies = new ArrayList<String>(dependencies.size());
       while (dependency_itr.hasNext()) {
-        String currentDependency = (String) dependency_itr.next();
-        graph.addEdge(currentVertex, currentDependency);
+        String dependency = (String) dependency_itr.next();
+        if (dependency != null) // ignored like addEdge(currentVertex, null)
+          currentDependencies.add(names.canonical(dependency));
+      }
+      if (acyclic) { // addEdge would drop a dependency closing a cycle without telling anyone
+        for (String currentDependency : currentDependencies) {
+          try {
+            ((Graph) graph).addEdgeChecked(currentVertex, currentDependency);
+          } catch (CycleException e) {
+            if (rejected == null)
+              rejected = e;
+          }
+        }
+      } else {
+        graph.addEdges(currentVertex, currentDependencies); // at once, storages may batch them
       }
     }
+    if (rejected != null) // reported once the rest of the file is loaded
+      throw rejected;
   }
 
   /**
@@ -94,6 +141,25 @@ public class PackageManager {
     return graph.getAllVertices();
   }
 
+  /**
+   * Returns the packages whose names start with a prefix, e.g. every package of a scope with
+   * "@org/", by walking the name table instead of scanning all packages. The table knows the
+   * packages of the graph when this PackageManager was created and every package added through
+   * it; packages added directly to a shared graph later on are not listed.
+   * 
+   * @param prefix the start of the package names
+   * @return List<String> of the matching packages, sorted by name
+   */
+  public List<String> getPackagesWithPrefix(String prefix) {
+    List<String> packages = new ArrayList<String>();
+    Set<String> vertices = graph.getAllVertices();
+    for (String pkg : names.withPrefix(prefix)) {
+      if (vertices.contains(pkg)) // removed from a shared graph
+        packages.add(pkg);
+    }
+    return packages;
+  }
+
   /**
    * Given a package name, returns a list of packages in a valid installation order.
    * 
@@ -112,6 +178,22 @@ public class PackageManager {
    */
   public List<String> getInstallationOrder(String pkg)
       throws CycleException, PackageNotFoundException {
+    return getInstallationOrder(pkg, (AtomicBoolean) null);
+  }
+
+  /**
+   * getInstallationOrder that stops walking the graph once cancelled is set, used by
+   * AsyncPackageManager for cancelled and expired requests
+   * 
+   * @param pkg       the package to resolve
+   * @param cancelled flag checked at every package, null if the resolution cannot be cancelled
+   * @return List<String>, order in which the packages have to be installed
+   * @throws CycleException           if the dependencies of pkg contain a cycle
+   * @throws PackageNotFoundException if the package does not exist in the dependency graph
+   * @throws CancellationException    once cancelled is set
+   */
+  List<String> getInstallationOrder(String pkg, AtomicBoolean cancelled)
+      throws CycleException, PackageNotFoundException {
     if (!graph.getAllVertices().contains(pkg)) { // If vertex not found in graph
       throw new PackageNotFoundException();
     }
@@ -119,23 +201,45 @@ public class PackageManager {
     // order of installation of packages to be returned
     List<String> installOrder = new ArrayList<String>();
     List<String> callStack = new ArrayList<String>(); // Pseudo call stack for DFS search
-    getInstallationOrderDFSHelper(pkg, callStack, installOrder);
+    getInstallationOrderDFSHelper(pkg, callStack, installOrder, cancelled);
 
     return installOrder;
   }
 
+  /**
+   * Returns the part of the installation order of a package that fits into a depth, size or time
+   * budget, nearest dependencies first, e.g. for interactive dependency views of huge closures.
+   * 
+   * @param pkg    the package to resolve
+   * @param limits the maximum depth, number of packages and time to spend
+   * @return PartialResolution with the resolved packages in installation order and whether, and
+   *         by which limit, the resolution was truncated
+   * @throws CycleException           if the resolved packages contain a cycle
+   * @throws PackageNotFoundException if the package does not exist in the dependency graph
+   */
+  public PartialResolution getInstallationOrder(String pkg, ResolutionLimits limits)
+      throws CycleException, PackageNotFoundException {
+    return new BoundedResolver(graph).resolve(pkg, limits);
+  }
+
   /**
    * Recursive helper method for getInstallationOrder which uses DFS search and cycle detection
    * 
    * @param current      Current vertex in graph
    * @param callStack    Vertices that the DFS was called upon which are still incomplete
    * @param installOrder
+   * @param cancelled    flag set when the resolution is cancelled, null if it cannot be
    * @throws CycleException
+   * @throws CancellationException once cancelled is set
    */
   private void getInstallationOrderDFSHelper(String current, List<String> callStack,
-      List<String> installOrder) throws CycleException { // TODO FIX THIS
+      List<String> installOrder, AtomicBoolean cancelled) throws CycleException { // TODO FIX THIS
+
+    if (cancelled != null && cancelled.get()) { // Resolution was cancelled, stop walking
+      throw new CancellationException();
+    }
 
-    if (callStack.contains(current)) { // If vertex already in callStack, cycle detected
+    if (!acyclic && callStack.contains(current)) { // Vertex already in callStack, cycle
       throw new CycleException();
     }
 
@@ -149,14 +253,39 @@ public class PackageManager {
     }
     callStack.add(current); // Add to call stack
 
-    List<String> adj = graph.getAdjacentVerticesOf(current);
-    Collections.sort(adj); // To get vertices in sorted CS400 convention order
+    // Sorted copy to get vertices in sorted CS400 convention order. Sorting the graph's own list
+    // would make concurrent resolutions on the same graph unsafe. Compressed storages decode
+    // straight into the copy
+    List<String> adj = new ArrayList<String>();
+    graph.addAdjacentVerticesTo(current, adj);
+    Collections.sort(adj);
     for (String neighbor : adj) {
-      getInstallationOrderDFSHelper(neighbor, callStack, installOrder);
+      getInstallationOrderDFSHelper(neighbor, callStack, installOrder, cancelled);
     }
     callStack.remove(current); // Remove from call stack after all neighbors have been dfs visited
   }
 
+  /**
+   * Checks whether a package transitively depends on another package without resolving its
+   * installation order. The first call builds a ReachabilityIndex over the graph, after which each
+   * query takes O(log n) time. A package is not considered a dependency of itself.
+   * 
+   * @param pkg        the depending package
+   * @param dependency the possible dependency
+   * @return true if dependency must be installed before pkg
+   * 
+   * @throws PackageNotFoundException if either package does not exist in the dependency graph.
+   */
+  public boolean dependsOn(String pkg, String dependency) throws PackageNotFoundException {
+    if (!graph.getAllVertices().contains(pkg) || !graph.getAllVertices().contains(dependency)) {
+      throw new PackageNotFoundException();
+    }
+    if (reachability == null) {
+      reachability = new ReachabilityIndex(graph);
+    }
+    return !pkg.equals(dependency) && reachability.reaches(pkg, dependency);
+  }
+
   /**
    * Given two packages - one to be installed and the other installed, return a List of the packages
    * that need to be newly installed.
@@ -177,9 +306,25 @@ public class PackageManager {
    */
   public List<String> toInstall(String newPkg, String installedPkg)
       throws CycleException, PackageNotFoundException {
-    List<String> alreadyInstalled = this.getInstallationOrder(installedPkg); // List of currently
-                                                                             // installed packages
-    List<String> toInstall = this.getInstallationOrder(newPkg); // List of dependencies of newPkg
+    return toInstall(newPkg, installedPkg, null);
+  }
+
+  /**
+   * toInstall that stops walking the graph once cancelled is set, used by AsyncPackageManager
+   * 
+   * @param newPkg       the package to be installed
+   * @param installedPkg the package that is already installed
+   * @param cancelled    flag checked at every package, null if the resolution cannot be cancelled
+   * @return List<String>, packages that need to be newly installed
+   * @throws CycleException           if the dependencies of the packages contain a cycle
+   * @throws PackageNotFoundException if any of the packages does not exist in the graph
+   * @throws CancellationException    once cancelled is set
+   */
+  List<String> toInstall(String newPkg, String installedPkg, AtomicBoolean cancelled)
+      throws CycleException, PackageNotFoundException {
+    // List of currently installed packages
+    List<String> alreadyInstalled = this.getInstallationOrder(installedPkg, cancelled);
+    List<String> toInstall = this.getInstallationOrder(newPkg, cancelled); // dependencies of newPkg
     List<String> needToInstall = new ArrayList<String>(); // Packages that are needed for newPkg
 
     for (String pkg : toInstall) {
@@ -201,14 +346,27 @@ public class PackageManager {
    * @throws CycleException if you encounter a cycle in the graph
    */
   public List<String> getInstallationOrderForAllPackages() throws CycleException { // TODO
-    this.detectCycle(); // Check if graph has cycles
+    return getInstallationOrderForAllPackages(null);
+  }
+
+  /**
+   * getInstallationOrderForAllPackages that stops walking the graph once cancelled is set, used
+   * by AsyncPackageManager
+   * 
+   * @param cancelled flag checked at every package, null if the resolution cannot be cancelled
+   * @return List<String>, order in which all the packages have to be installed
+   * @throws CycleException        if you encounter a cycle in the graph
+   * @throws CancellationException once cancelled is set
+   */
+  List<String> getInstallationOrderForAllPackages(AtomicBoolean cancelled) throws CycleException {
+    this.detectCycle(cancelled); // Check if graph has cycles
 
     Set<String> noDependencyPackages = this.getPackagesNotDependencies();
     List<String> installOrder = new ArrayList<String>();
     List<String> callStack = new ArrayList<String>();
 
     for (String p : noDependencyPackages) {
-      this.getInstallationOrderDFSHelper(p, callStack, installOrder);
+      this.getInstallationOrderDFSHelper(p, callStack, installOrder, cancelled);
     }
 
     // Collections.reverse(installOrder); // Because topological ordering
@@ -225,9 +383,9 @@ public class PackageManager {
     Set<String> allVertices = graph.getAllVertices(); // All vertices in graph, used for iteration
     List<String> dependencyPackages = null; // Packages which are a dependency for
                                             // another package
-    // Using second duplicate set to prevent concurrent modification. This is the final set that
-    // will be returned
-    Set<String> allVerticesNoDep = graph.getAllVertices(); //
+    // Using a copy to prevent concurrent modification and to leave the graph's own set untouched.
+    // This is the final set that will be returned
+    Set<String> allVerticesNoDep = new HashSet<String>(graph.getAllVertices());
 
     // Remove packages which are a dependency for another package from the set
     for (String vertex : allVertices) {
@@ -241,8 +399,10 @@ public class PackageManager {
     return allVerticesNoDep;
   }
 
-  private void detectCycle() throws CycleException {
-    Set<String> allVertices = graph.getAllVertices();
+  private void detectCycle(AtomicBoolean cancelled) throws CycleException {
+    if (acyclic) // the graph rejected every edge that would have closed a cycle
+      return;
+    Set<String> allVertices = new HashSet<String>(graph.getAllVertices()); // copy, shrinks below
     List<String> checked = new ArrayList<String>();
     List<String> callStack = new ArrayList<String>();
 
@@ -255,7 +415,7 @@ public class PackageManager {
 
       String current = (String) allVertices.toArray()[0]; // Get one element from the set
 
-      this.getInstallationOrderDFSHelper(current, callStack, checked);
+      this.getInstallationOrderDFSHelper(current, callStack, checked, cancelled);
     }
   }
 
@@ -293,7 +453,152 @@ public class PackageManager {
     return maxDepPackage;
   }
 
-  public static void main(String[] args) {
+  /**
+   * Computes the number of transitive dependencies of every package at once, using all cores.
+   * Unlike getPackageWithMaxDependencies this also covers packages in cycles, which are reported
+   * instead of throwing a CycleException.
+   * 
+   * @param keepDependencies true if the report should also list the dependencies of each package
+   * @return RegistryReport for all packages in the graph
+   */
+  public RegistryReport getRegistryReport(boolean keepDependencies) {
+    return new RegistryAnalytics(graph).analyze(keepDependencies);
+  }
+
+  /**
+   * Removes every dependency that is already implied by another dependency, e.g. A->C when A
+   * depends on B and B depends on C. Installation orders stay valid and every later traversal
+   * walks fewer edges.
+   * 
+   * @return the number of dependencies removed
+   * @throws CycleException if the graph contains a cycle, the graph is left unchanged
+   */
+  public int removeRedundantDependencies() throws CycleException {
+    TransitiveReduction.Result reduction = new TransitiveReduction(graph).reduce();
+    for (Map.Entry<String, List<String>> entry : reduction.getRemoved().entrySet()) {
+      for (String dependency : entry.getValue())
+        graph.removeEdge(entry.getKey(), dependency);
+    }
+    reachability = null; // the graph has changed
+    fingerprints = null;
+    return reduction.getRemovedCount();
+  }
+
+  /**
+   * Adds a dependency to the graph and updates the closure fingerprints of the packages it
+   * affects. Unknown packages are added.
+   * 
+   * @param pkg        the dependent package
+   * @param dependency the package pkg depends on
+   * @return Set<String> of the packages whose closure fingerprint changed
+   * @throws CycleException if the graph is in acyclic mode and the dependency would close a cycle
+   */
+  public Set<String> addDependency(String pkg, String dependency) throws CycleException {
+    if (graph.getAllVertices().contains(pkg)
+        && graph.getAdjacentVerticesOf(pkg).contains(dependency))
+      return new HashSet<String>(); // nothing changes
+    ClosureFingerprints current = fingerprints(); // hashes of the graph before the change
+    graph.addEdge(names.canonical(pkg), names.canonical(dependency));
+    if (!graph.getAdjacentVerticesOf(pkg).contains(dependency))
+      throw new CycleException(); // rejected by an acyclic graph
+    reachability = null; // the graph has changed
+    return current.edgeAdded(pkg, dependency);
+  }
+
+  /**
+   * Removes a dependency from the graph and updates the closure fingerprints of the packages it
+   * affects.
+   * 
+   * @param pkg        the dependent package
+   * @param dependency the package pkg no longer depends on
+   * @return Set<String> of the packages whose closure fingerprint changed, empty if pkg did not
+   *         depend on dependency
+   */
+  public Set<String> removeDependency(String pkg, String dependency) {
+    if (!graph.getAllVertices().contains(pkg)
+        || !graph.getAdjacentVerticesOf(pkg).contains(dependency))
+      return new HashSet<String>(); // nothing changes
+    ClosureFingerprints current = fingerprints(); // hashes of the graph before the change
+    graph.removeEdge(pkg, dependency);
+    reachability = null; // the graph has changed
+    return current.edgeRemoved(pkg, dependency);
+  }
+
+  /**
+   * Returns a hash of the dependency closure of a package: two packages or two versions of the
+   * graph give the same fingerprint exactly when the closures have the same packages and edges.
+   * 
+   * @param pkg the package
+   * @return the SHA-256 fingerprint as 64 hex digits
+   * @throws PackageNotFoundException if the package does not exist in the dependency graph
+   */
+  public String getClosureFingerprint(String pkg) throws PackageNotFoundException {
+    if (!graph.getAllVertices().contains(pkg))
+      throw new PackageNotFoundException();
+    return fingerprints().getFingerprint(pkg);
+  }
+
+  /**
+   * Returns the closure fingerprint of every package, e.g. to be stored after a CI run and passed
+   * to getChangedPackages by the next one.
+   * 
+   * @return Map<String, String> of every package to its fingerprint
+   */
+  public Map<String, String> getClosureFingerprints() {
+    return fingerprints().getFingerprints();
+  }
+
+  /**
+   * Returns the packages whose dependency closure changed since the fingerprints were taken, i.e.
+   * the packages that have to be rebuilt, without resolving any of them.
+   * 
+   * @param before fingerprints returned by an earlier getClosureFingerprints call
+   * @return Set<String> of the packages that changed, were added or were removed
+   */
+  public Set<String> getChangedPackages(Map<String, String> before) {
+    return fingerprints().changedSince(before);
+  }
+
+  /**
+   * Helper method returning the closure fingerprints, built by the first thread that needs them
+   */
+  private ClosureFingerprints fingerprints() {
+    ClosureFingerprints current = fingerprints;
+    if (current == null) {
+      synchronized (this) {
+        current = fingerprints;
+        if (current == null)
+          fingerprints = current = new ClosureFingerprints(graph);
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Estimates the wall-clock time to install a package when independent packages are installed
+   * in parallel, and which packages decide that time.
+   * 
+   * @param pkg       the package to install
+   * @param durations install duration of the packages, packages without one count as 0
+   * @return InstallTimeEstimate with the critical path, slack and parallel speedup
+   * @throws CycleException           if the dependencies of pkg contain a cycle
+   * @throws PackageNotFoundException if the package does not exist in the dependency graph
+   * @throws IllegalArgumentException if one of the durations is negative
+   */
+  public InstallTimeEstimate getInstallTimeEstimate(String pkg, Map<String, Long> durations)
+      throws CycleException, PackageNotFoundException {
+    return new CriticalPathAnalysis(graph, durations, 0).analyze(pkg);
+  }
+
+  /**
+   * With arguments this runs a BatchResolver: java PackageManager packages.json [queries|-]
+   * [threads] answers every query in the file or on standard input as one line of JSON.
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length > 0) {
+      BatchResolver.main(args);
+      return;
+    }
     System.out.println("PackageManager.main()");
 
     PackageManager p = new PackageManager();
@@ -13,7 +13,9 @@
 //                                                None
 //////////////////////////////////////// CREDIT OUTSIDE HELP ///////////////////////////////////////
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileWriter;
 import java.util.LinkedList;
 import java.util.List;
 import org.junit.jupiter.api.AfterEach;
@@ -231,4 +233,53 @@ class PackageManagerTest {
     }
   }
 
+  /**
+   * This method tests that a graph in acyclic mode reports a dependency that would close a cycle
+   * when the graph is constructed, instead of resolving orders that silently lack it.
+   */
+  @Test
+  public void test009_acyclic_graph_reports_cycles_when_constructed() throws Exception {
+    File json = File.createTempFile("cyclic", ".json");
+    json.deleteOnExit();
+    FileWriter writer = new FileWriter(json);
+    writer.write("{\"packages\":[{\"name\":\"A\",\"dependencies\":[\"B\"]},"
+        + "{\"name\":\"B\",\"dependencies\":[\"C\"]},"
+        + "{\"name\":\"C\",\"dependencies\":[\"A\",\"D\"]}]}");
+    writer.close();
+    packageManagerInstance = new PackageManager(new Graph(true));
+    try {
+      packageManagerInstance.constructGraph(json.getPath());
+      fail("C->A closes the cycle A->B->C->A");
+    } catch (CycleException e) {
+      // expected
+    }
+    installationLists.add("D");
+    installationLists.add("C");
+    installationLists.add("B");
+    installationLists.add("A");
+    if (!packageManagerInstance.getInstallationOrder("A").equals(installationLists))
+      fail("every other dependency must still be loaded, the order should be "
+          + installationLists + " and not " + packageManagerInstance.getInstallationOrder("A"));
+  }
+
+  /**
+   * This method tests that packages without a name and null dependencies are skipped when the
+   * graph is constructed, as the graph ignores null vertices.
+   */
+  @Test
+  public void test010_construct_graph_skips_null_names() throws Exception {
+    File json = File.createTempFile("nulls", ".json");
+    json.deleteOnExit();
+    FileWriter writer = new FileWriter(json);
+    writer.write("{\"packages\":[{\"dependencies\":[\"A\"]},"
+        + "{\"name\":\"B\",\"dependencies\":[null,\"C\"]}]}");
+    writer.close();
+    packageManagerInstance.constructGraph(json.getPath());
+    installationLists.add("C");
+    installationLists.add("B");
+    if (packageManagerInstance.getAllPackages().size() != 2
+        || !packageManagerInstance.getInstallationOrder("B").equals(installationLists))
+      fail("only B and C must be loaded, but got " + packageManagerInstance.getAllPackages());
+  }
+
 }
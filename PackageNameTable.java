@@ -0,0 +1,192 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Filename:   PackageNameTable.java
+ * Project:    p4
+ *
+ * A dictionary of package names that gives every distinct name one canonical String instance.
+ * Interning the names while a graph is built makes the vertex set, the adjacency keys and every
+ * dependency list share a single String per package instead of one per occurrence in the json
+ * file.
+ *
+ * The names are indexed by a radix trie (a trie whose chains of single children are merged into
+ * one edge), so all names starting with a prefix, e.g. every package under "@org/" or
+ * "org.apache.", are found by walking the prefix and listing one subtree, without looking at
+ * other names. Edge labels are not copied: an edge refers to a range of characters of one of the
+ * interned names, by its index in the array of names, so the trie costs a fixed number of ints
+ * per node on top of the names.
+ *
+ * Names are never removed. The table is not thread-safe.
+ */
+public class PackageNameTable {
+
+  /**
+   * A trie node, reached over the edge labeled names[source].substring(from, to)
+   */
+  private static class Node {
+    private int source; // id of a name that contains the edge label
+    private int from; // first character of the edge label in that name
+    private int to; // end of the edge label in that name
+    private int id = -1; // id of the name ending at this node, -1 if none
+    private Node[] children = NO_CHILDREN; // sorted by the first character of their labels
+    private int childCount;
+
+    private Node(int source, int from, int to) {
+      this.source = source;
+      this.from = from;
+      this.to = to;
+    }
+  }
+
+  private static final Node[] NO_CHILDREN = new Node[0];
+
+  private final Node root = new Node(0, 0, 0);
+  private String[] names = new String[16]; // canonical name by id
+  private int size; // number of names
+
+  /**
+   * Helper method returning the index of a name in names, adding the name if it is new
+   */
+  private int intern(String name) {
+    Node node = root;
+    int i = 0;
+    while (i < name.length()) {
+      int index = find(node, name.charAt(i));
+      if (index < 0) { // no edge starts with this character, hang the rest of the name here
+        int id = add(name);
+        Node leaf = new Node(id, i, name.length());
+        leaf.id = id;
+        insert(node, -index - 1, leaf);
+        return id;
+      }
+      Node child = node.children[index];
+      String label = names[child.source];
+      int common = 0;
+      while (child.from + common < child.to && i + common < name.length()
+          && label.charAt(child.from + common) == name.charAt(i + common))
+        common++;
+      if (child.from + common < child.to) { // the name leaves the edge, split it
+        Node middle = new Node(child.source, child.from, child.from + common);
+        child.from += common;
+        middle.children = new Node[] {child};
+        middle.childCount = 1;
+        node.children[index] = middle;
+        child = middle;
+      }
+      node = child;
+      i += common;
+    }
+    if (node.id < 0)
+      node.id = add(name);
+    return node.id;
+  }
+
+  /**
+   * This method returns the canonical instance of a name, adding the name if it is new
+   *
+   * @param name a package name
+   * @return the String equal to name that the table hands out for it every time
+   */
+  public String canonical(String name) {
+    int index = intern(name); // may grow names, so read the array afterwards
+    return names[index];
+  }
+
+  /**
+   * @return the number of names in the table
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * This method lists the names that start with a prefix
+   *
+   * @param prefix the prefix, "" for every name
+   * @return List<String> of the names starting with prefix, sorted
+   */
+  public List<String> withPrefix(String prefix) {
+    List<String> result = new ArrayList<String>();
+    Node node = locate(prefix);
+    if (node != null)
+      collect(node, result);
+    return result;
+  }
+
+  /**
+   * Helper method walking the trie along a prefix. Returns the node whose subtree holds exactly
+   * the names starting with the prefix, the node where it ends or the child whose edge it ends
+   * in, or null if no name starts with it.
+   */
+  private Node locate(String prefix) {
+    Node node = root;
+    int i = 0;
+    while (i < prefix.length()) {
+      int index = find(node, prefix.charAt(i));
+      if (index < 0)
+        return null;
+      node = node.children[index];
+      int length = Math.min(node.to - node.from, prefix.length() - i);
+      if (!names[node.source].regionMatches(node.from, prefix, i, length))
+        return null;
+      i += length;
+    }
+    return node;
+  }
+
+  /**
+   * Helper method adding the names of a subtree to a list, in sorted order
+   */
+  private void collect(Node node, List<String> result) {
+    if (node.id >= 0)
+      result.add(names[node.id]);
+    for (int i = 0; i < node.childCount; i++)
+      collect(node.children[i], result);
+  }
+
+  /**
+   * Helper method binary searching the child whose label starts with c. Returns its index, or
+   * -(insertion point) - 1 if there is none.
+   */
+  private int find(Node node, char c) {
+    int low = 0;
+    int high = node.childCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      Node child = node.children[mid];
+      char first = names[child.source].charAt(child.from);
+      if (first < c)
+        low = mid + 1;
+      else if (first > c)
+        high = mid - 1;
+      else
+        return mid;
+    }
+    return -low - 1;
+  }
+
+  /**
+   * Helper method inserting a child at a position, keeping the children sorted
+   */
+  private static void insert(Node node, int position, Node child) {
+    if (node.childCount == node.children.length)
+      node.children = Arrays.copyOf(node.children, Math.max(2, node.childCount * 2));
+    System.arraycopy(node.children, position, node.children, position + 1,
+        node.childCount - position);
+    node.children[position] = child;
+    node.childCount++;
+  }
+
+  /**
+   * Helper method giving a new name the next id
+   */
+  private int add(String name) {
+    if (size == names.length)
+      names = Arrays.copyOf(names, size * 2);
+    names[size] = name;
+    return size++;
+  }
+
+}
@@ -0,0 +1,109 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the PackageNameTable
+ */
+class PackageNameTableTest {
+  private PackageNameTable tableInstance; // the table used by every test
+
+  /**
+   * This method runs before every test method and interns scoped names
+   */
+  @BeforeEach
+  public void setUp() {
+    tableInstance = new PackageNameTable();
+    tableInstance.canonical("@org/core");
+    tableInstance.canonical("@org/core-utils");
+    tableInstance.canonical("@org/cli");
+    tableInstance.canonical("@other/core");
+    tableInstance.canonical("org.apache.commons");
+    tableInstance.canonical("@org");
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    tableInstance = null;
+  }
+
+  /**
+   * This method checks that every name has one canonical instance
+   */
+  @Test
+  public void test001_names_are_deduplicated() {
+    if (tableInstance.size() != 6)
+      fail("6 names were interned, but size = " + tableInstance.size());
+    String first = tableInstance.canonical("@org/cli");
+    if (tableInstance.canonical(new String("@org/cli")) != first || tableInstance.size() != 6)
+      fail("a known name must return its first instance and add nothing");
+    for (int i = 0; i < 100; i++) { // enough names to grow the table
+      String name = "pkg" + i;
+      if (!tableInstance.canonical(new String(name)).equals(name))
+        fail("canonical must return the name " + name);
+    }
+    if (tableInstance.withPrefix("@org/c").contains("@org/c")
+        || !tableInstance.withPrefix("@org/core-utils-x").isEmpty())
+      fail("prefixes and extensions of names are not names");
+  }
+
+  /**
+   * This method checks prefix queries on scoped names
+   */
+  @Test
+  public void test002_prefix_lists_the_scope() {
+    List<String> scope = tableInstance.withPrefix("@org/");
+    if (!scope.equals(Arrays.asList("@org/cli", "@org/core", "@org/core-utils")))
+      fail("@org/ has cli, core and core-utils, but got " + scope);
+    if (!tableInstance.withPrefix("@org/core")
+        .equals(Arrays.asList("@org/core", "@org/core-utils")))
+      fail("a prefix that is a name lists the name too");
+    if (!tableInstance.withPrefix("org.").equals(Arrays.asList("org.apache.commons")))
+      fail("org. has one name");
+    if (!tableInstance.withPrefix("@none").isEmpty()
+        || !tableInstance.withPrefix("@org/x").isEmpty())
+      fail("no name starts with @none or @org/x");
+    if (tableInstance.withPrefix("").size() != 6)
+      fail("the empty prefix lists every name");
+  }
+
+  /**
+   * This method compares prefix queries on random names with a sorted set
+   */
+  @Test
+  public void test003_random_names_match_sorted_set() {
+    Random rnd = new Random(42);
+    TreeSet<String> expected = new TreeSet<String>();
+    PackageNameTable table = new PackageNameTable();
+    for (int i = 0; i < 3000; i++) {
+      StringBuilder name = new StringBuilder();
+      int length = rnd.nextInt(8);
+      for (int c = 0; c < length; c++)
+        name.append("ab/.c".charAt(rnd.nextInt(5)));
+      String pkg = name.toString();
+      int known = table.size();
+      table.canonical(pkg);
+      if (expected.add(pkg) != (table.size() == known + 1))
+        fail(pkg + " must be added exactly when it is new");
+    }
+    for (String prefix : Arrays.asList("", "a", "ab", "b/", "c.a", "/./", "aaaaaaa", "abcab/c")) {
+      List<String> want = new ArrayList<String>();
+      for (String pkg : expected) {
+        if (pkg.startsWith(prefix))
+          want.add(pkg);
+      }
+      if (!table.withPrefix(prefix).equals(want))
+        fail("prefix " + prefix + ": expected " + want + " but got " + table.withPrefix(prefix));
+    }
+  }
+
+}
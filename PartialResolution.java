@@ -0,0 +1,83 @@
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filename:   PartialResolution.java
+ * Project:    p4
+ *
+ * The result of a BoundedResolver query: the packages that were resolved within the limits, in a
+ * valid installation order, and where the resolution was cut off. If it was not truncated the
+ * order is a complete installation order of the target.
+ */
+public class PartialResolution {
+
+  /**
+   * The limit that cut a resolution short
+   */
+  public enum Truncation {
+    NONE, DEPTH, PACKAGES, DEADLINE
+  }
+
+  private String target;
+  private List<String> order;
+  private Map<String, Integer> depths;
+  private List<String> frontier;
+  private Truncation truncation;
+
+  public PartialResolution(String target, List<String> order, Map<String, Integer> depths,
+      List<String> frontier, Truncation truncation) {
+    this.target = target;
+    this.order = order;
+    this.depths = depths;
+    this.frontier = frontier;
+    this.truncation = truncation;
+  }
+
+  /**
+   * @return the package that was resolved
+   */
+  public String getTarget() {
+    return this.target;
+  }
+
+  /**
+   * @return List<String> of the resolved packages, each after all of its resolved dependencies,
+   *         the target last
+   */
+  public List<String> getOrder() {
+    return this.order;
+  }
+
+  /**
+   * @param pkg a resolved package
+   * @return the number of dependency edges on the shortest path from the target to pkg, 0 for
+   *         the target, or -1 if pkg was not resolved
+   */
+  public int getDepth(String pkg) {
+    Integer depth = depths.get(pkg);
+    return depth == null ? -1 : depth;
+  }
+
+  /**
+   * @return List<String> of the resolved packages with dependencies that were not resolved, in
+   *         installation order; the packages to expand when more of the closure is needed
+   */
+  public List<String> getFrontier() {
+    return this.frontier;
+  }
+
+  /**
+   * @return true if some dependencies of the target were left out
+   */
+  public boolean isTruncated() {
+    return truncation != Truncation.NONE;
+  }
+
+  /**
+   * @return the limit that cut the resolution short, NONE if it is complete
+   */
+  public Truncation getTruncation() {
+    return this.truncation;
+  }
+
+}
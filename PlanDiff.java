@@ -0,0 +1,201 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filename:   PlanDiff.java
+ * Project:    p4
+ *
+ * Computes the InstallPlan between a current environment and a target environment. An
+ * environment is a set of root packages the user asked for; everything reachable from the roots
+ * is installed. The current and the target environment may use different versions of the
+ * dependency graph, e.g. before and after a registry update.
+ *
+ * - packages reachable only from the target roots are installed
+ * - packages reachable only from the current roots are removed
+ * - packages reachable from both are reinstalled if their dependency list differs between the two
+ *   graphs, or if one of their dependencies is reinstalled
+ *
+ * Every step uses hash sets and one pass over the edges of the environments. Ordering the plan
+ * also sorts the packages that become ready together, every package once, so a diff is
+ * O(V log V + E) in the size of the two environments.
+ */
+public class PlanDiff {
+
+  private final GraphADT current; // graph of the current environment
+  private final GraphADT target; // graph of the target environment
+
+  /**
+   * Creates a diff engine for two environments on the same graph
+   *
+   * @param graph the dependency graph
+   */
+  public PlanDiff(GraphADT graph) {
+    this(graph, graph);
+  }
+
+  /**
+   * Creates a diff engine for environments on two versions of the graph
+   *
+   * @param current the graph of the installed environment
+   * @param target  the graph of the environment to move to
+   */
+  public PlanDiff(GraphADT current, GraphADT target) {
+    this.current = current;
+    this.target = target;
+  }
+
+  /**
+   * This method computes the plan that turns the current environment into the target one
+   *
+   * @param currentRoots the explicitly installed packages of the current environment
+   * @param targetRoots  the explicitly installed packages of the target environment
+   * @return InstallPlan of removals, installations and reinstallations
+   * @throws CycleException           if the packages to install or remove contain a cycle
+   * @throws PackageNotFoundException if a root is not in its graph
+   */
+  public InstallPlan diff(Collection<String> currentRoots, Collection<String> targetRoots)
+      throws CycleException, PackageNotFoundException {
+    Set<String> installed = reachable(current, currentRoots);
+    Set<String> wanted = reachable(target, targetRoots);
+
+    Set<String> toInstall = new HashSet<String>();
+    Set<String> kept = new HashSet<String>();
+    for (String pkg : wanted) {
+      if (installed.contains(pkg))
+        kept.add(pkg);
+      else
+        toInstall.add(pkg);
+    }
+    Set<String> toRemove = new HashSet<String>();
+    for (String pkg : installed) {
+      if (!wanted.contains(pkg))
+        toRemove.add(pkg);
+    }
+
+    // packages whose own dependency list changed, then everything kept that depends on them
+    ArrayDeque<String> queue = new ArrayDeque<String>();
+    Set<String> toReinstall = new HashSet<String>();
+    if (current != target) {
+      for (String pkg : kept) {
+        if (!new HashSet<String>(current.getAdjacentVerticesOf(pkg))
+            .equals(new HashSet<String>(target.getAdjacentVerticesOf(pkg)))) {
+          toReinstall.add(pkg);
+          queue.add(pkg);
+        }
+      }
+    }
+    HashMap<String, List<String>> dependents = dependents(target, wanted);
+    while (!queue.isEmpty()) {
+      for (String dependent : dependents.get(queue.poll())) {
+        if (kept.contains(dependent) && toReinstall.add(dependent))
+          queue.add(dependent);
+      }
+    }
+
+    Set<String> all = new HashSet<String>(toInstall);
+    all.addAll(toReinstall);
+    List<String> installOrder = order(target, all, dependents, false);
+    List<String> installOnly = new ArrayList<String>();
+    List<String> reinstallOnly = new ArrayList<String>();
+    for (String pkg : installOrder) {
+      if (toInstall.contains(pkg))
+        installOnly.add(pkg);
+      else
+        reinstallOnly.add(pkg);
+    }
+    List<String> removeOrder = order(current, toRemove, dependents(current, installed), true);
+    return new InstallPlan(installOnly, removeOrder, reinstallOnly, installOrder);
+  }
+
+  /**
+   * Helper method collecting every package reachable from the roots
+   */
+  private static Set<String> reachable(GraphADT graph, Collection<String> roots)
+      throws PackageNotFoundException {
+    Set<String> seen = new HashSet<String>();
+    ArrayDeque<String> stack = new ArrayDeque<String>();
+    for (String root : roots) {
+      if (!graph.getAllVertices().contains(root))
+        throw new PackageNotFoundException();
+      if (seen.add(root))
+        stack.push(root);
+    }
+    while (!stack.isEmpty()) {
+      for (String dependency : graph.getAdjacentVerticesOf(stack.pop())) {
+        if (seen.add(dependency))
+          stack.push(dependency);
+      }
+    }
+    return seen;
+  }
+
+  /**
+   * Helper method building the reverse edges inside an environment
+   */
+  private static HashMap<String, List<String>> dependents(GraphADT graph, Set<String> env) {
+    HashMap<String, List<String>> dependents = new HashMap<String, List<String>>(env.size() * 2);
+    for (String pkg : env)
+      dependents.put(pkg, new ArrayList<String>());
+    for (String pkg : env) {
+      for (String dependency : graph.getAdjacentVerticesOf(pkg))
+        dependents.get(dependency).add(pkg); // dependencies of env members are in env
+    }
+    return dependents;
+  }
+
+  /**
+   * Helper method ordering a subset of an environment with Kahn's algorithm. Only edges inside
+   * the subset constrain the order. Packages that become ready at the same time are taken in
+   * sorted order, so plans are reproducible. Every package is sorted once, with the packages
+   * that became ready with it, so ordering is O(V log V + E).
+   *
+   * @param graph      the graph of the environment
+   * @param subset     the packages to order
+   * @param dependents reverse edges of the environment
+   * @param removal    false for dependencies first (installing), true for dependents first
+   * @return List<String> of the subset in order
+   * @throws CycleException if the subset contains a cycle
+   */
+  private static List<String> order(GraphADT graph, Set<String> subset,
+      HashMap<String, List<String>> dependents, boolean removal) throws CycleException {
+    HashMap<String, Integer> pending = new HashMap<String, Integer>(subset.size() * 2);
+    for (String pkg : subset) {
+      int count = 0;
+      for (String next : removal ? dependents.get(pkg) : graph.getAdjacentVerticesOf(pkg)) {
+        if (subset.contains(next))
+          count++;
+      }
+      pending.put(pkg, count);
+    }
+
+    List<String> ready = new ArrayList<String>();
+    for (String pkg : subset) {
+      if (pending.get(pkg) == 0)
+        ready.add(pkg);
+    }
+    Collections.sort(ready);
+    ArrayDeque<String> queue = new ArrayDeque<String>(ready);
+    List<String> order = new ArrayList<String>(subset.size());
+    while (!queue.isEmpty()) {
+      String pkg = queue.poll();
+      order.add(pkg);
+      ready.clear();
+      for (String next : removal ? graph.getAdjacentVerticesOf(pkg) : dependents.get(pkg)) {
+        if (subset.contains(next) && pending.put(next, pending.get(next) - 1) == 1)
+          ready.add(next);
+      }
+      Collections.sort(ready);
+      queue.addAll(ready);
+    }
+    if (order.size() != subset.size()) // the rest waits on each other
+      throw new CycleException();
+    return order;
+  }
+
+}
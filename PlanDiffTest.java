@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the PlanDiff engine
+ */
+class PlanDiffTest {
+  private Graph graphInstance; // the dependency graph used by every test
+
+  /**
+   * This method runs before every test method and builds the graph
+   * A->[B, C], B->[D], C->[D], E->[D, F], F
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new Graph();
+    graphInstance.addEdge("A", "B");
+    graphInstance.addEdge("A", "C");
+    graphInstance.addEdge("B", "D");
+    graphInstance.addEdge("C", "D");
+    graphInstance.addEdge("E", "D");
+    graphInstance.addEdge("E", "F");
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    graphInstance = null;
+  }
+
+  /**
+   * This method checks installations and removals when the roots change on the same graph
+   */
+  @Test
+  public void test001_switch_roots() throws Exception {
+    InstallPlan plan = new PlanDiff(graphInstance).diff(Arrays.asList("A"), Arrays.asList("E"));
+    if (!plan.getToInstall().equals(Arrays.asList("F", "E")))
+      fail("E and F are new and F must come first, not " + plan.getToInstall());
+    if (!plan.getToRemove().equals(Arrays.asList("A", "B", "C")))
+      fail("A must be removed before B and C, got " + plan.getToRemove());
+    if (!plan.getToReinstall().isEmpty())
+      fail("D is kept unchanged");
+  }
+
+  /**
+   * This method checks that the same environment gives an empty plan
+   */
+  @Test
+  public void test002_same_environment_is_empty() throws Exception {
+    InstallPlan plan = new PlanDiff(graphInstance).diff(Arrays.asList("A", "E"),
+        Arrays.asList("E", "A"));
+    if (!plan.isEmpty())
+      fail("nothing changes, but got " + plan.getInstallOrder() + " " + plan.getToRemove());
+  }
+
+  /**
+   * This method checks reinstallation when a kept package gets a new dependency
+   */
+  @Test
+  public void test003_changed_dependencies_are_reinstalled() throws Exception {
+    Graph updated = new Graph();
+    updated.addEdge("A", "B");
+    updated.addEdge("A", "C");
+    updated.addEdge("B", "D");
+    updated.addEdge("C", "D");
+    updated.addEdge("C", "G"); // C gets a new dependency G
+    InstallPlan plan = new PlanDiff(graphInstance, updated).diff(Arrays.asList("A"),
+        Arrays.asList("A"));
+    if (!plan.getToInstall().equals(Arrays.asList("G")))
+      fail("G is new, got " + plan.getToInstall());
+    if (!plan.getToReinstall().equals(Arrays.asList("C", "A")))
+      fail("C changed and A depends on it, got " + plan.getToReinstall());
+    if (!plan.getInstallOrder().equals(Arrays.asList("G", "C", "A")))
+      fail("G must be installed before C and A, got " + plan.getInstallOrder());
+  }
+
+  /**
+   * This method checks the exceptions for missing roots and cycles
+   */
+  @Test
+  public void test004_missing_root_and_cycle() throws Exception {
+    try {
+      new PlanDiff(graphInstance).diff(Collections.<String>emptyList(), Arrays.asList("Z"));
+      fail("Z is not in the graph");
+    } catch (PackageNotFoundException e) {
+      // expected
+    }
+    graphInstance.addEdge("F", "E");
+    try {
+      new PlanDiff(graphInstance).diff(Collections.<String>emptyList(), Arrays.asList("E"));
+      fail("E and F depend on each other");
+    } catch (CycleException e) {
+      // expected
+    }
+  }
+
+}
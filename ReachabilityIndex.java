@@ -0,0 +1,190 @@
+import java.util.Arrays;
+
+/**
+ * Filename:   ReachabilityIndex.java
+ * Project:    p4
+ *
+ * A precomputed index that answers "does package A transitively depend on package B" without
+ * resolving the installation order of A.
+ *
+ * The index condenses the graph into its strongly connected components, numbers the component DAG
+ * in post order along a spanning forest and stores for every component the compressed set of post
+ * order intervals it can reach (interval based transitive closure). A query is a component lookup
+ * followed by a binary search over the interval list of A, i.e. O(log k) for k intervals. Building
+ * the index is linear in the size of the graph plus the total number of stored intervals, which
+ * stays close to the number of packages for tree like dependency graphs.
+ *
+ * The index is a snapshot, call rebuild() after the graph has been modified.
+ */
+public class ReachabilityIndex {
+
+  private final GraphADT graph; // the graph that is indexed
+  private IndexedGraph indexed; // dense id snapshot of the graph
+  private int[] component; // component id by vertex id
+  private int[] post; // post order number of each component along the spanning forest
+  private int[][] intervals; // sorted, disjoint [start, end] post order intervals per component
+  private int intervalCount; // total number of stored intervals
+
+  /**
+   * Creates the index for the given graph
+   *
+   * @param graph the dependency graph to be indexed
+   */
+  public ReachabilityIndex(GraphADT graph) {
+    this.graph = graph;
+    rebuild();
+  }
+
+  /**
+   * This method recomputes the index from the current state of the graph
+   */
+  public void rebuild() {
+    indexed = IndexedGraph.of(graph);
+    Condensation condensation = indexed.condense();
+    IndexedGraph dag = condensation.dag();
+    int n = indexed.order();
+    int c = condensation.componentCount();
+
+    component = new int[n];
+    for (int v = 0; v < n; v++)
+      component[v] = condensation.component(v);
+
+    // post order numbering of a spanning forest of the DAG. The post numbers of the tree
+    // descendants of a component form the interval [lowPost, post] of that component
+    post = new int[c];
+    int[] lowPost = new int[c];
+    boolean[] visited = new boolean[c];
+    int[] callVertex = new int[c];
+    int[] callEdge = new int[c];
+    int counter = 0;
+    for (int root = c - 1; root >= 0; root--) { // sources have the highest component ids
+      if (visited[root])
+        continue;
+      int cs = 0;
+      visited[root] = true;
+      lowPost[root] = counter;
+      callVertex[cs] = root;
+      callEdge[cs++] = 0;
+      while (cs > 0) {
+        int v = callVertex[cs - 1];
+        if (callEdge[cs - 1] < dag.outDegree(v)) {
+          int w = dag.successor(v, callEdge[cs - 1]++);
+          if (!visited[w]) { // tree edge
+            visited[w] = true;
+            lowPost[w] = counter;
+            callVertex[cs] = w;
+            callEdge[cs++] = 0;
+          }
+        } else {
+          post[v] = counter++;
+          cs--;
+        }
+      }
+    }
+
+    // dependencies have lower component ids, so their intervals are complete when a component
+    // merges them into its own list
+    intervals = new int[c][];
+    intervalCount = 0;
+    long[] buffer = new long[16];
+    for (int v = 0; v < c; v++) {
+      int count = 0;
+      buffer[count++] = pack(lowPost[v], post[v]);
+      for (int i = 0; i < dag.outDegree(v); i++) {
+        int[] child = intervals[dag.successor(v, i)];
+        if (count + child.length / 2 > buffer.length)
+          buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + child.length / 2));
+        for (int k = 0; k < child.length; k += 2)
+          buffer[count++] = pack(child[k], child[k + 1]);
+      }
+      intervals[v] = merge(buffer, count);
+      intervalCount += intervals[v].length / 2;
+    }
+  }
+
+  /**
+   * Helper method to store an interval in a long so that sorting orders intervals by start
+   */
+  private static long pack(int start, int end) {
+    return ((long) start << 32) | end;
+  }
+
+  /**
+   * Helper method that sorts intervals and merges the ones that overlap or touch
+   *
+   * @param buffer packed intervals
+   * @param count  number of intervals in the buffer
+   * @return int[] of start, end pairs
+   */
+  private static int[] merge(long[] buffer, int count) {
+    Arrays.sort(buffer, 0, count);
+    int[] merged = new int[count * 2];
+    int size = 0;
+    for (int i = 0; i < count; i++) {
+      int start = (int) (buffer[i] >>> 32);
+      int end = (int) buffer[i];
+      if (size > 0 && start <= merged[size - 1] + 1) { // extends the previous interval
+        if (end > merged[size - 1])
+          merged[size - 1] = end;
+      } else {
+        merged[size++] = start;
+        merged[size++] = end;
+      }
+    }
+    return size == merged.length ? merged : Arrays.copyOf(merged, size);
+  }
+
+  /**
+   * This method checks whether a package is part of the index
+   *
+   * @param pkg the package name
+   * @return true if the package was in the graph when the index was built
+   */
+  public boolean contains(String pkg) {
+    return indexed.idOf(pkg) >= 0;
+  }
+
+  /**
+   * This method checks whether the package from transitively depends on the package to. Every
+   * package reaches itself.
+   *
+   * @param from the depending package
+   * @param to   the possible dependency
+   * @return true if to is reachable from from, false otherwise or if either package is unknown
+   */
+  public boolean reaches(String from, String to) {
+    int a = indexed.idOf(from);
+    int b = indexed.idOf(to);
+    if (a < 0 || b < 0)
+      return false;
+    int ca = component[a];
+    int cb = component[b];
+    if (ca == cb)
+      return true;
+    if (cb > ca) // dependencies always have lower component ids
+      return false;
+
+    int target = post[cb];
+    int[] list = intervals[ca];
+    int lo = 0;
+    int hi = list.length / 2 - 1;
+    while (lo <= hi) { // binary search for the last interval starting at or before target
+      int mid = (lo + hi) >>> 1;
+      if (list[2 * mid] <= target)
+        lo = mid + 1;
+      else
+        hi = mid - 1;
+    }
+    return hi >= 0 && list[2 * hi + 1] >= target;
+  }
+
+  /**
+   * This method returns the total number of intervals stored by the index, a measure of its size
+   *
+   * @return number of stored intervals
+   */
+  public int intervalCount() {
+    return intervalCount;
+  }
+
+}
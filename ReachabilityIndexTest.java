@@ -0,0 +1,130 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the ReachabilityIndex
+ */
+class ReachabilityIndexTest {
+  private Graph graphInstance; // the graph which is indexed in every test
+
+  /**
+   * This method runs before every test method
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new Graph();
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    graphInstance = null;
+  }
+
+  /**
+   * Helper method that finds the reachable vertices by BFS, used as the expected answer
+   */
+  private Set<String> reachableByBFS(String from) {
+    Set<String> seen = new HashSet<String>();
+    ArrayDeque<String> queue = new ArrayDeque<String>();
+    seen.add(from);
+    queue.add(from);
+    while (!queue.isEmpty()) {
+      for (String neighbor : graphInstance.getAdjacentVerticesOf(queue.poll())) {
+        if (seen.add(neighbor))
+          queue.add(neighbor);
+      }
+    }
+    return seen;
+  }
+
+  /**
+   * This method checks transitive dependencies along a chain and a diamond
+   */
+  @Test
+  public void test001_chain_and_diamond() {
+    graphInstance.addEdge("A", "B");
+    graphInstance.addEdge("A", "C");
+    graphInstance.addEdge("B", "D");
+    graphInstance.addEdge("C", "D");
+    graphInstance.addEdge("D", "E");
+    graphInstance.addVertex("F");
+    ReachabilityIndex index = new ReachabilityIndex(graphInstance);
+
+    if (!index.reaches("A", "E") || !index.reaches("C", "E") || !index.reaches("B", "D"))
+      fail("A, B and C transitively depend on D and E");
+    if (index.reaches("E", "A") || index.reaches("B", "C") || index.reaches("A", "F"))
+      fail("reverse edges and unrelated packages must not be reachable");
+    if (!index.reaches("F", "F"))
+      fail("every package reaches itself");
+  }
+
+  /**
+   * This method checks that all members of a cycle reach each other and what the cycle depends on
+   */
+  @Test
+  public void test002_cycle_members_reach_each_other() {
+    graphInstance.addEdge("A", "B");
+    graphInstance.addEdge("B", "C");
+    graphInstance.addEdge("C", "A");
+    graphInstance.addEdge("C", "D");
+    ReachabilityIndex index = new ReachabilityIndex(graphInstance);
+
+    if (!index.reaches("B", "A") || !index.reaches("A", "C") || !index.reaches("B", "D"))
+      fail("members of a cycle must reach each other and their dependencies");
+    if (index.reaches("D", "A"))
+      fail("D does not depend on the cycle");
+  }
+
+  /**
+   * This method checks that unknown packages are not reachable and rebuild picks up new edges
+   */
+  @Test
+  public void test003_unknown_packages_and_rebuild() {
+    graphInstance.addEdge("A", "B");
+    ReachabilityIndex index = new ReachabilityIndex(graphInstance);
+    if (index.reaches("A", "Z") || index.contains("Z"))
+      fail("Z is not in the graph");
+
+    graphInstance.addEdge("B", "Z");
+    if (index.reaches("A", "Z"))
+      fail("the index is a snapshot until it is rebuilt");
+    index.rebuild();
+    if (!index.reaches("A", "Z"))
+      fail("A depends on Z after the rebuild");
+  }
+
+  /**
+   * This method compares the index against a BFS on a random graph with cycles
+   */
+  @Test
+  public void test004_matches_bfs_on_random_graph() {
+    Random random = new Random(400);
+    for (int i = 0; i < 200; i++)
+      graphInstance.addVertex("p" + i);
+    for (int i = 0; i < 400; i++) { // mostly acyclic edges with a few back edges
+      int from = random.nextInt(199);
+      graphInstance.addEdge("p" + from, "p" + (from + 1 + random.nextInt(199 - from)));
+    }
+    for (int i = 0; i < 10; i++)
+      graphInstance.addEdge("p" + random.nextInt(200), "p" + random.nextInt(200));
+    ReachabilityIndex index = new ReachabilityIndex(graphInstance);
+
+    for (String from : graphInstance.getAllVertices()) {
+      Set<String> expected = reachableByBFS(from);
+      for (String to : graphInstance.getAllVertices()) {
+        if (index.reaches(from, to) != expected.contains(to))
+          fail("wrong answer for " + from + " -> " + to);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,199 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Filename:   RegistryAnalytics.java
+ * Project:    p4
+ *
+ * Computes the transitive dependency set of every package in the registry in parallel.
+ *
+ * The graph is condensed into its strongly connected components and the component DAG is split
+ * into levels, where the level of a component is one more than the highest level of its
+ * dependencies. All components of a level only depend on lower levels, so a level is processed by
+ * a fork-join pool in parallel once the previous level is done. The closure of a component is
+ * the union of the closures of its dependencies, stored as a CompressedBitSet over the member
+ * order of the condensation.
+ *
+ * Unless the closures are kept for the report, a closure is released as soon as every component
+ * depending on it has been processed, and a dependency with a single dependent hands its closure
+ * over instead of being copied, so long chains do not copy their closures level after level.
+ */
+public class RegistryAnalytics {
+
+  private static final int SEQUENTIAL_THRESHOLD = 64; // components per fork-join leaf task
+
+  private final GraphADT graph; // the analyzed graph
+  private final ForkJoinPool pool; // pool running the levels
+
+  /**
+   * Creates the analytics for a graph using the common fork-join pool
+   *
+   * @param graph the dependency graph
+   */
+  public RegistryAnalytics(GraphADT graph) {
+    this(graph, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates the analytics for a graph using the given pool
+   *
+   * @param graph the dependency graph
+   * @param pool  the pool that computes the closures
+   */
+  public RegistryAnalytics(GraphADT graph, ForkJoinPool pool) {
+    this.graph = graph;
+    this.pool = pool;
+  }
+
+  /**
+   * This method computes the transitive dependencies of every package in the graph. Packages in a
+   * cycle are analyzed as well and share the dependencies of their cycle.
+   *
+   * @param keepClosures true to keep every dependency set for RegistryReport.getDependencies,
+   *                     false to only keep the counts and free memory early
+   * @return RegistryReport with the results
+   */
+  public RegistryReport analyze(boolean keepClosures) {
+    Condensation condensation = IndexedGraph.of(graph).condense();
+    IndexedGraph dag = condensation.dag();
+    int c = condensation.componentCount();
+
+    // levels and in-degrees of the component DAG, dependencies have lower ids than dependents
+    int[] level = new int[c];
+    int[] inDegree = new int[c];
+    int levels = 0;
+    for (int v = 0; v < c; v++) {
+      for (int i = 0; i < dag.outDegree(v); i++) {
+        int w = dag.successor(v, i);
+        level[v] = Math.max(level[v], level[w] + 1);
+        inDegree[w]++;
+      }
+      levels = Math.max(levels, level[v] + 1);
+    }
+
+    // bucket the components by level
+    int[] levelOffsets = new int[levels + 1];
+    for (int v = 0; v < c; v++)
+      levelOffsets[level[v] + 1]++;
+    for (int l = 0; l < levels; l++)
+      levelOffsets[l + 1] += levelOffsets[l];
+    int[] byLevel = new int[c];
+    int[] fill = new int[levels];
+    System.arraycopy(levelOffsets, 0, fill, 0, levels);
+    for (int v = 0; v < c; v++)
+      byLevel[fill[level[v]]++] = v;
+
+    Closures closures = new Closures(condensation, inDegree, keepClosures);
+    for (int l = 0; l < levels; l++) {
+      int from = levelOffsets[l];
+      int to = levelOffsets[l + 1];
+      if (to - from <= SEQUENTIAL_THRESHOLD) // small levels are not worth a task
+        closures.compute(byLevel, from, to);
+      else
+        pool.invoke(new LevelTask(closures, byLevel, from, to));
+    }
+    return new RegistryReport(condensation, closures.sizes, keepClosures ? closures.sets : null);
+  }
+
+  /**
+   * The state shared by the tasks of one analysis
+   */
+  private static class Closures {
+    private final Condensation condensation;
+    private final IndexedGraph dag;
+    private final int[] inDegree; // number of dependents of each component
+    private final AtomicIntegerArray pending; // dependents that still need the closure
+    private final boolean keep; // true if closures must survive the analysis
+    private final CompressedBitSet[] sets; // closure by component
+    private final int[] sizes; // closure size by component
+
+    private Closures(Condensation condensation, int[] inDegree, boolean keep) {
+      this.condensation = condensation;
+      this.dag = condensation.dag();
+      this.inDegree = inDegree;
+      this.pending = new AtomicIntegerArray(inDegree);
+      this.keep = keep;
+      this.sets = new CompressedBitSet[condensation.componentCount()];
+      this.sizes = new int[condensation.componentCount()];
+    }
+
+    /**
+     * Helper method that computes the closures of the components byLevel[from] .. byLevel[to-1]
+     */
+    private void compute(int[] byLevel, int from, int to) {
+      for (int i = from; i < to; i++)
+        compute(byLevel[i]);
+    }
+
+    /**
+     * Helper method that computes the closure of one component from its dependencies
+     */
+    private void compute(int v) {
+      // take over the largest closure that nobody else needs instead of copying it
+      int stolen = -1;
+      if (!keep) {
+        for (int i = 0; i < dag.outDegree(v); i++) {
+          int w = dag.successor(v, i);
+          if (inDegree[w] == 1 && (stolen < 0 || sizes[w] > sizes[stolen]))
+            stolen = w;
+        }
+      }
+      CompressedBitSet closure;
+      if (stolen >= 0) {
+        closure = sets[stolen];
+        sets[stolen] = null;
+      } else {
+        closure = new CompressedBitSet();
+      }
+
+      for (int i = 0; i < dag.outDegree(v); i++) {
+        int w = dag.successor(v, i);
+        if (w != stolen)
+          closure.or(sets[w]);
+      }
+      closure.addRange(condensation.memberOffset(v), condensation.memberOffset(v + 1));
+      sizes[v] = closure.cardinality();
+      if (keep || inDegree[v] > 0)
+        sets[v] = closure;
+
+      if (!keep) { // release dependencies whose last dependent is done
+        for (int i = 0; i < dag.outDegree(v); i++) {
+          int w = dag.successor(v, i);
+          if (w != stolen && pending.decrementAndGet(w) == 0)
+            sets[w] = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Fork-join task computing a range of components of one level
+   */
+  @SuppressWarnings("serial")
+  private static class LevelTask extends RecursiveAction {
+    private final Closures closures;
+    private final int[] byLevel;
+    private final int from;
+    private final int to;
+
+    private LevelTask(Closures closures, int[] byLevel, int from, int to) {
+      this.closures = closures;
+      this.byLevel = byLevel;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= SEQUENTIAL_THRESHOLD) {
+        closures.compute(byLevel, from, to);
+      } else {
+        int mid = (from + to) >>> 1;
+        invokeAll(new LevelTask(closures, byLevel, from, mid),
+            new LevelTask(closures, byLevel, mid, to));
+      }
+    }
+  }
+
+}
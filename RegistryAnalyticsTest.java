@@ -0,0 +1,108 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the RegistryAnalytics
+ */
+class RegistryAnalyticsTest {
+  private Graph graphInstance; // the dependency graph used by every test
+
+  /**
+   * This method runs before every test method and builds the graph from the example of
+   * getPackageWithMaxDependencies: A->[B, C], B->[C], C->[D], plus a cycle E->F->E
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new Graph();
+    graphInstance.addEdge("A", "B");
+    graphInstance.addEdge("A", "C");
+    graphInstance.addEdge("B", "C");
+    graphInstance.addEdge("C", "D");
+    graphInstance.addEdge("E", "F");
+    graphInstance.addEdge("F", "E");
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    graphInstance = null;
+  }
+
+  /**
+   * This method checks the dependency counts and the package with the most dependencies
+   */
+  @Test
+  public void test001_dependency_counts() {
+    RegistryReport report = new RegistryAnalytics(graphInstance).analyze(false);
+    if (report.getDependencyCount("A") != 3 || report.getDependencyCount("C") != 1
+        || report.getDependencyCount("D") != 0)
+      fail("A has 3 dependencies, C has 1 and D has none");
+    if (!report.getPackageWithMaxDependencies().equals("A"))
+      fail("A has the most dependencies, not " + report.getPackageWithMaxDependencies());
+    if (report.getDependencyCount("Z") != -1)
+      fail("Z was not analyzed");
+  }
+
+  /**
+   * This method checks that cycles are reported instead of failing the analysis
+   */
+  @Test
+  public void test002_cycles_are_reported() {
+    RegistryReport report = new RegistryAnalytics(graphInstance).analyze(true);
+    if (!report.isInCycle("E") || report.isInCycle("A"))
+      fail("only E and F are in a cycle");
+    if (!report.getDependencies("E").contains("F") || report.getDependencyCount("E") != 1)
+      fail("E depends on F through the cycle");
+  }
+
+  /**
+   * This method checks the kept dependency sets
+   */
+  @Test
+  public void test003_kept_dependencies() {
+    List<String> dependencies = new RegistryAnalytics(graphInstance).analyze(true)
+        .getDependencies("A");
+    HashSet<String> expected = new HashSet<String>();
+    expected.add("B");
+    expected.add("C");
+    expected.add("D");
+    if (!new HashSet<String>(dependencies).equals(expected))
+      fail("A depends on B, C and D and not " + dependencies);
+  }
+
+  /**
+   * This method checks a graph with levels wide enough to be processed by the fork-join pool
+   */
+  @Test
+  public void test004_wide_graph_in_parallel() throws Exception {
+    for (int i = 0; i < 500; i++) { // 500 packages on the last two packages of a chain of 300
+      graphInstance.addEdge("top" + i, "mid" + (299 - i % 2));
+      graphInstance.addEdge("top" + i, "mid299");
+    }
+    for (int i = 0; i < 299; i++)
+      graphInstance.addEdge("mid" + i, "mid" + (i + 1));
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    RegistryReport report;
+    try {
+      report = new RegistryAnalytics(graphInstance, pool).analyze(false);
+    } finally {
+      pool.shutdown();
+    }
+    StringWriter out = new StringWriter();
+    report.writeTo(out);
+    if (!out.toString().contains("mid0\t299\tfalse"))
+      fail("mid0 depends on the 299 packages after it in the chain");
+    if (report.getDependencyCount("top1") != 2 || report.getDependencyCount("top0") != 1)
+      fail("top1 depends on mid298 and mid299, top0 only on mid299");
+  }
+
+}
@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filename:   RegistryReport.java
+ * Project:    p4
+ *
+ * The result of a RegistryAnalytics run: the number of transitive dependencies of every package
+ * and, if they were kept, the transitive dependency sets themselves.
+ */
+public class RegistryReport {
+
+  private final Condensation condensation; // components of the analyzed graph
+  private final int[] closureSizes; // number of packages reachable from each component
+  private final CompressedBitSet[] closures; // member positions reachable from each component,
+                                             // null if the closures were not kept
+
+  /**
+   * Creates a report
+   *
+   * @param condensation the condensation of the analyzed graph
+   * @param closureSizes closure size by component, including the component itself
+   * @param closures     closure by component over member positions, or null
+   */
+  RegistryReport(Condensation condensation, int[] closureSizes, CompressedBitSet[] closures) {
+    this.condensation = condensation;
+    this.closureSizes = closureSizes;
+    this.closures = closures;
+  }
+
+  /**
+   * This method returns the number of packages in the report
+   *
+   * @return number of analyzed packages
+   */
+  public int size() {
+    return condensation.graph().order();
+  }
+
+  /**
+   * This method returns the number of transitive dependencies of a package, counting every
+   * package once and not counting the package itself.
+   *
+   * @param pkg the package name
+   * @return the number of dependencies, or -1 if the package was not analyzed
+   */
+  public int getDependencyCount(String pkg) {
+    int v = condensation.graph().idOf(pkg);
+    if (v < 0)
+      return -1;
+    return closureSizes[condensation.component(v)] - 1;
+  }
+
+  /**
+   * This method checks whether a package is part of a dependency cycle
+   *
+   * @param pkg the package name
+   * @return true if the package transitively depends on itself
+   */
+  public boolean isInCycle(String pkg) {
+    int v = condensation.graph().idOf(pkg);
+    return v >= 0 && condensation.isCyclic(condensation.component(v));
+  }
+
+  /**
+   * This method returns the transitive dependencies of a package
+   *
+   * @param pkg the package name
+   * @return List<String> of the dependencies in no particular order, or null if the package was
+   *         not analyzed
+   * @throws IllegalStateException if the report was created without keeping the closures
+   */
+  public List<String> getDependencies(String pkg) {
+    if (closures == null)
+      throw new IllegalStateException("closures were not kept");
+    int v = condensation.graph().idOf(pkg);
+    if (v < 0)
+      return null;
+    List<String> dependencies = new ArrayList<String>();
+    for (int position : closures[condensation.component(v)].toArray()) {
+      int dependency = condensation.memberAt(position);
+      if (dependency != v)
+        dependencies.add(condensation.graph().nameOf(dependency));
+    }
+    return dependencies;
+  }
+
+  /**
+   * This method finds the package with the most transitive dependencies
+   *
+   * @return the name of the package, or "" if the report is empty
+   */
+  public String getPackageWithMaxDependencies() {
+    String maxPackage = "";
+    int max = -1;
+    for (int v = 0; v < size(); v++) {
+      int count = closureSizes[condensation.component(v)];
+      if (count > max) {
+        max = count;
+        maxPackage = condensation.graph().nameOf(v);
+      }
+    }
+    return maxPackage;
+  }
+
+  /**
+   * This method writes one tab separated line per package: name, number of dependencies and
+   * whether the package is in a cycle
+   *
+   * @param out the writer, it is not closed
+   * @throws IOException if writing fails
+   */
+  public void writeTo(Writer out) throws IOException {
+    out.write("package\tdependencies\tcyclic\n");
+    for (int v = 0; v < size(); v++) {
+      int c = condensation.component(v);
+      out.write(condensation.graph().nameOf(v));
+      out.write('\t');
+      out.write(Integer.toString(closureSizes[c] - 1));
+      out.write('\t');
+      out.write(condensation.isCyclic(c) ? "true" : "false");
+      out.write('\n');
+    }
+    out.flush();
+  }
+
+}
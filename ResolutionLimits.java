@@ -0,0 +1,58 @@
+/**
+ * Filename:   ResolutionLimits.java
+ * Project:    p4
+ *
+ * Bounds for a BoundedResolver query. A negative value means no limit:
+ *
+ * maxDepth       packages further than this many dependency edges from the target are left out,
+ *                1 resolves the target and its direct dependencies
+ * maxPackages    at most this many packages are resolved, the target included
+ * timeoutMillis  the search stops after about this many milliseconds
+ */
+public class ResolutionLimits {
+
+  /**
+   * Limits that never truncate a resolution
+   */
+  public static final ResolutionLimits NONE = new ResolutionLimits(-1, -1, -1);
+
+  private int maxDepth;
+  private int maxPackages;
+  private long timeoutMillis;
+
+  public ResolutionLimits(int maxDepth, int maxPackages, long timeoutMillis) {
+    this.maxDepth = maxDepth;
+    this.maxPackages = maxPackages;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * @param maxDepth the number of dependency levels to resolve below the target
+   * @return ResolutionLimits bounding only the depth
+   */
+  public static ResolutionLimits depth(int maxDepth) {
+    return new ResolutionLimits(maxDepth, -1, -1);
+  }
+
+  /**
+   * @return the number of dependency levels to resolve below the target, negative for all
+   */
+  public int getMaxDepth() {
+    return this.maxDepth;
+  }
+
+  /**
+   * @return the maximum number of packages to resolve, negative for no limit
+   */
+  public int getMaxPackages() {
+    return this.maxPackages;
+  }
+
+  /**
+   * @return the time budget in milliseconds, negative for no limit
+   */
+  public long getTimeoutMillis() {
+    return this.timeoutMillis;
+  }
+
+}
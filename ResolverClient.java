@@ -0,0 +1,146 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Filename:   ResolverClient.java
+ * Project:    p4
+ *
+ * Client for a ResolverServer on the same machine. Its methods mirror PackageManager and throw
+ * the same exceptions, so it can stand in for a local PackageManager.
+ */
+public class ResolverClient {
+
+  private final String base; // http://127.0.0.1:port
+
+  /**
+   * Creates a client for a server on the loopback interface
+   *
+   * @param port the port of the server
+   */
+  public ResolverClient(int port) {
+    this.base = "http://127.0.0.1:" + port;
+  }
+
+  /**
+   * Remote PackageManager.getInstallationOrder
+   *
+   * @param pkg the package to resolve
+   * @return List<String> of the installation order
+   * @throws CycleException           if the server found a cycle
+   * @throws PackageNotFoundException if the package does not exist on the server
+   * @throws IOException              if the server cannot be reached or fails
+   */
+  public List<String> getInstallationOrder(String pkg)
+      throws CycleException, PackageNotFoundException, IOException {
+    return request("/order?pkg=" + encode(pkg));
+  }
+
+  /**
+   * Remote PackageManager.toInstall
+   *
+   * @param newPkg       the package to be installed
+   * @param installedPkg the package that is already installed
+   * @return List<String> of the packages to install
+   * @throws CycleException           if the server found a cycle
+   * @throws PackageNotFoundException if a package does not exist on the server
+   * @throws IOException              if the server cannot be reached or fails
+   */
+  public List<String> toInstall(String newPkg, String installedPkg)
+      throws CycleException, PackageNotFoundException, IOException {
+    return request("/toInstall?new=" + encode(newPkg) + "&installed=" + encode(installedPkg));
+  }
+
+  /**
+   * This method fetches the counters of the server
+   *
+   * @return JSONObject of the server statistics
+   * @throws IOException if the server cannot be reached or answers garbage
+   */
+  public JSONObject getStats() throws IOException {
+    return (JSONObject) parse(open("/stats").getInputStream());
+  }
+
+  /**
+   * Helper method performing a resolve request and mapping the status to exceptions. Bodies are
+   * read to the end and closed instead of disconnecting, so the keep-alive connection is reused
+   * by the next request.
+   */
+  private List<String> request(String path)
+      throws CycleException, PackageNotFoundException, IOException {
+    HttpURLConnection connection = open(path);
+    int status = connection.getResponseCode();
+    if (status == 404) {
+      drain(connection.getErrorStream());
+      throw new PackageNotFoundException();
+    }
+    if (status == 409) {
+      drain(connection.getErrorStream());
+      throw new CycleException();
+    }
+    if (status != 200) {
+      drain(connection.getErrorStream());
+      throw new IOException("resolver answered " + status);
+    }
+    JSONArray array = (JSONArray) parse(connection.getInputStream());
+    List<String> order = new ArrayList<String>(array.size());
+    for (Object pkg : array)
+      order.add((String) pkg);
+    return order;
+  }
+
+  /**
+   * Helper method opening a connection to the server
+   */
+  private HttpURLConnection open(String path) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+    connection.setRequestMethod("GET");
+    return connection;
+  }
+
+  /**
+   * Helper method reading a JSON body and closing it, which returns the connection to the
+   * keep-alive cache
+   */
+  private static Object parse(InputStream in) throws IOException {
+    Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+    try {
+      return new JSONParser().parse(reader);
+    } catch (ParseException e) {
+      throw new IOException("invalid response: " + e);
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Helper method consuming an error body so the connection can be reused
+   */
+  private static void drain(InputStream in) throws IOException {
+    if (in == null)
+      return;
+    byte[] buffer = new byte[1024];
+    while (in.read(buffer) >= 0)
+      ;
+    in.close();
+  }
+
+  /**
+   * Helper method encoding a query parameter
+   */
+  private static String encode(String value) throws IOException {
+    return URLEncoder.encode(value, "UTF-8");
+  }
+
+}
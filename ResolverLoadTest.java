@@ -0,0 +1,78 @@
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filename:   ResolverLoadTest.java
+ * Project:    p4
+ *
+ * Load generator for a ResolverServer on the same machine. A number of client threads send
+ * getInstallationOrder requests for the given packages in round robin, then the client prints its
+ * own throughput and latency percentiles followed by the statistics of the server.
+ *
+ * Usage: java ResolverLoadTest port requests concurrency pkg [pkg ...]
+ */
+public class ResolverLoadTest {
+
+  /**
+   * Runs the load test
+   *
+   * @param args port, total number of requests, number of client threads, packages to request
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 4) {
+      System.err.println("usage: java ResolverLoadTest <port> <requests> <concurrency> <pkg>...");
+      System.exit(2);
+    }
+    final ResolverClient client = new ResolverClient(Integer.parseInt(args[0]));
+    final int requests = Integer.parseInt(args[1]);
+    int concurrency = Integer.parseInt(args[2]);
+    final String[] packages = Arrays.copyOfRange(args, 3, args.length);
+
+    final AtomicInteger next = new AtomicInteger(); // index of the next request
+    final AtomicInteger failures = new AtomicInteger();
+    final AtomicLongArray latencies = new AtomicLongArray(requests); // microseconds by request
+    final CountDownLatch done = new CountDownLatch(concurrency);
+    ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+
+    long start = System.nanoTime();
+    for (int t = 0; t < concurrency; t++) {
+      clients.execute(new Runnable() {
+        public void run() {
+          int i;
+          while ((i = next.getAndIncrement()) < requests) {
+            long begin = System.nanoTime();
+            try {
+              client.getInstallationOrder(packages[i % packages.length]);
+            } catch (Exception e) {
+              failures.incrementAndGet();
+            }
+            latencies.set(i, (System.nanoTime() - begin) / 1000);
+          }
+          done.countDown();
+        }
+      });
+    }
+    done.await();
+    long elapsed = System.nanoTime() - start;
+    clients.shutdown();
+    clients.awaitTermination(1, TimeUnit.MINUTES);
+
+    long[] sorted = new long[requests];
+    for (int i = 0; i < requests; i++)
+      sorted[i] = latencies.get(i);
+    Arrays.sort(sorted);
+    System.out.printf("requests=%d failures=%d seconds=%.3f throughput=%.1f/s%n", requests,
+        failures.get(), elapsed / 1e9, requests / (elapsed / 1e9));
+    if (requests > 0)
+      System.out.printf("latency micros p50=%d p99=%d max=%d%n", sorted[requests / 2],
+          sorted[Math.min(requests - 1, (int) Math.ceil(requests * 0.99) - 1)],
+          sorted[requests - 1]);
+    System.out.println("server " + client.getStats().toJSONString());
+  }
+
+}
@@ -0,0 +1,327 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Filename:   ResolverServer.java
+ * Project:    p4
+ *
+ * A small HTTP server on the loopback interface that answers resolve requests from one shared
+ * PackageManager:
+ *
+ * GET /order?pkg=A                  installation order of A, as a JSON array
+ * GET /toInstall?new=A&installed=B  packages to install for A when B is installed
+ * GET /stats                        request, coalescing and latency counters
+ *
+ * Identical requests that arrive while the same computation is still running are coalesced: they
+ * wait for the running computation instead of starting their own, so a burst of clients asking
+ * for the same package after a release costs one resolve. Every new computation goes straight to
+ * a worker, so distinct requests run in parallel and a slow resolve never holds up an unrelated
+ * one.
+ *
+ * Errors are answered with 404 for PackageNotFoundException, 409 for CycleException and 400 for
+ * malformed requests, with a JSON object {"error": ...} as body.
+ */
+public class ResolverServer {
+
+  private static final int LATENCY_BUCKETS = 40; // log2 buckets of the latency in microseconds
+
+  static {
+    // small responses are otherwise held back by Nagle's algorithm for tens of milliseconds
+    if (System.getProperty("sun.net.httpserver.nodelay") == null)
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  private final PackageManager manager; // resolves the requests
+  private final HttpServer server; // the loopback HTTP server
+  private final ExecutorService handlers; // threads serving connections
+  private final ExecutorService workers; // threads computing the jobs
+  private final ConcurrentHashMap<String, CompletableFuture<List<String>>> inFlight; // by request
+
+  private final LongAdder requests = new LongAdder(); // resolve requests received
+  private final LongAdder coalesced = new LongAdder(); // requests that joined a running one
+  private final LongAdder computations = new LongAdder(); // resolves actually run
+  private final LongAdder errors = new LongAdder(); // requests answered with an error
+  private final LongAdder totalLatency = new LongAdder(); // sum of latencies in microseconds
+  private final AtomicLong maxLatency = new AtomicLong(); // slowest request in microseconds
+  private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS); // histogram
+
+  /**
+   * A computation handed to a worker
+   */
+  private static class Job {
+    private final String key; // coalescing key of the request
+    private final String[] args; // operation and packages
+    private final CompletableFuture<List<String>> result;
+
+    private Job(String key, String[] args, CompletableFuture<List<String>> result) {
+      this.key = key;
+      this.args = args;
+      this.result = result;
+    }
+  }
+
+  /**
+   * Creates a server on the loopback interface
+   *
+   * @param manager the package manager answering the requests, must not be modified while the
+   *                server runs
+   * @param port    the port to listen on, 0 for any free port
+   * @param threads number of connection threads and of worker threads
+   * @throws IOException if the port cannot be bound
+   */
+  public ResolverServer(PackageManager manager, int port, int threads) throws IOException {
+    this.manager = manager;
+    this.inFlight = new ConcurrentHashMap<String, CompletableFuture<List<String>>>();
+    this.handlers = Executors.newFixedThreadPool(threads);
+    this.workers = Executors.newFixedThreadPool(threads);
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+        0);
+    this.server.setExecutor(handlers);
+    this.server.createContext("/order", new HttpHandler() {
+      public void handle(HttpExchange exchange) throws IOException {
+        HashMap<String, String> query = parseQuery(exchange);
+        resolve(exchange, new String[] {"order", query.get("pkg")});
+      }
+    });
+    this.server.createContext("/toInstall", new HttpHandler() {
+      public void handle(HttpExchange exchange) throws IOException {
+        HashMap<String, String> query = parseQuery(exchange);
+        resolve(exchange, new String[] {"toInstall", query.get("new"), query.get("installed")});
+      }
+    });
+    this.server.createContext("/stats", new HttpHandler() {
+      public void handle(HttpExchange exchange) throws IOException {
+        respond(exchange, 200, getStats().toJSONString());
+      }
+    });
+  }
+
+  /**
+   * This method starts accepting requests
+   */
+  public void start() {
+    server.start();
+  }
+
+  /**
+   * This method stops the server and its threads
+   */
+  public void stop() {
+    server.stop(0);
+    handlers.shutdownNow();
+    workers.shutdownNow();
+  }
+
+  /**
+   * This method returns the port the server listens on
+   *
+   * @return the bound port
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * This method returns the counters of the server
+   *
+   * @return JSONObject with the counters and latency percentiles in microseconds
+   */
+  @SuppressWarnings("unchecked")
+  public JSONObject getStats() {
+    JSONObject stats = new JSONObject();
+    long count = requests.sum();
+    stats.put("requests", count);
+    stats.put("coalesced", coalesced.sum());
+    stats.put("computations", computations.sum());
+    stats.put("errors", errors.sum());
+    stats.put("meanLatencyMicros", count == 0 ? 0 : totalLatency.sum() / count);
+    stats.put("p50LatencyMicros", percentile(0.50));
+    stats.put("p99LatencyMicros", percentile(0.99));
+    stats.put("maxLatencyMicros", maxLatency.get());
+    return stats;
+  }
+
+  /**
+   * Helper method joining or starting the computation of a request and writing its result
+   */
+  private void resolve(HttpExchange exchange, String[] args) throws IOException {
+    long start = System.nanoTime();
+    requests.increment();
+    for (String arg : args) {
+      if (arg == null) {
+        errors.increment();
+        respond(exchange, 400, error("missing parameter"));
+        return;
+      }
+    }
+
+    StringBuilder key = new StringBuilder();
+    for (String arg : args)
+      key.append(arg).append('\u0000'); // package names cannot contain NUL
+    String requestKey = key.toString();
+    CompletableFuture<List<String>> created = new CompletableFuture<List<String>>();
+    CompletableFuture<List<String>> result = inFlight.putIfAbsent(requestKey, created);
+    if (result == null) { // first one, compute it
+      result = created;
+      final Job job = new Job(requestKey, args, created);
+      try {
+        workers.execute(new Runnable() {
+          public void run() {
+            compute(job);
+          }
+        });
+      } catch (RejectedExecutionException e) { // the workers are shut down
+        inFlight.remove(requestKey, created);
+        created.completeExceptionally(e);
+      }
+    } else {
+      coalesced.increment();
+    }
+
+    try {
+      List<String> order = result.get();
+      respond(exchange, 200, JSONArray.toJSONString(order));
+    } catch (ExecutionException e) {
+      errors.increment();
+      Throwable cause = e.getCause();
+      if (cause instanceof PackageNotFoundException)
+        respond(exchange, 404, error("PackageNotFoundException"));
+      else if (cause instanceof CycleException)
+        respond(exchange, 409, error("CycleException"));
+      else if (cause instanceof RejectedExecutionException)
+        respond(exchange, 503, error("server stopping"));
+      else
+        respond(exchange, 500, error(String.valueOf(cause)));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      respond(exchange, 503, error("server stopping"));
+    } finally {
+      record((System.nanoTime() - start) / 1000);
+    }
+  }
+
+  /**
+   * Helper method computing one job and releasing the coalesced requests waiting for it
+   */
+  private void compute(Job job) {
+    computations.increment();
+    try {
+      if (job.args[0].equals("order"))
+        job.result.complete(manager.getInstallationOrder(job.args[1]));
+      else
+        job.result.complete(manager.toInstall(job.args[1], job.args[2]));
+    } catch (Throwable e) {
+      job.result.completeExceptionally(e);
+    } finally {
+      inFlight.remove(job.key, job.result); // later requests start a fresh computation
+    }
+  }
+
+  /**
+   * Helper method adding a latency to the histogram
+   */
+  private void record(long micros) {
+    totalLatency.add(micros);
+    int bucket = Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    latencies.incrementAndGet(bucket);
+    long max;
+    while (micros > (max = maxLatency.get()) && !maxLatency.compareAndSet(max, micros))
+      ; // retry until the maximum is updated or a larger one is stored
+  }
+
+  /**
+   * Helper method estimating a latency percentile as the upper bound of its histogram bucket
+   */
+  private long percentile(double fraction) {
+    long total = 0;
+    for (int i = 0; i < LATENCY_BUCKETS; i++)
+      total += latencies.get(i);
+    long seen = 0;
+    for (int i = 0; i < LATENCY_BUCKETS; i++) {
+      seen += latencies.get(i);
+      if (total > 0 && seen >= Math.ceil(total * fraction))
+        return (1L << i) - 1;
+    }
+    return 0;
+  }
+
+  /**
+   * Helper method building an error body
+   */
+  @SuppressWarnings("unchecked")
+  private static String error(String message) {
+    JSONObject body = new JSONObject();
+    body.put("error", message);
+    return body.toJSONString();
+  }
+
+  /**
+   * Helper method decoding the query string of a request
+   */
+  private static HashMap<String, String> parseQuery(HttpExchange exchange)
+      throws UnsupportedEncodingException {
+    HashMap<String, String> query = new HashMap<String, String>();
+    String raw = exchange.getRequestURI().getRawQuery();
+    if (raw == null)
+      return query;
+    for (String pair : raw.split("&")) {
+      int eq = pair.indexOf('=');
+      if (eq > 0)
+        query.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+            URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+    }
+    return query;
+  }
+
+  /**
+   * Helper method writing a JSON response
+   */
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    OutputStream out = exchange.getResponseBody();
+    out.write(bytes);
+    out.close();
+  }
+
+  /**
+   * Starts a server for a json package file: java ResolverServer file.json [port] [threads]
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("usage: java ResolverServer <packages.json> [port] [threads]");
+      System.exit(2);
+    }
+    PackageManager manager = new PackageManager();
+    manager.constructGraph(args[0]);
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : 8400;
+    int threads = args.length > 2 ? Integer.parseInt(args[2])
+        : Runtime.getRuntime().availableProcessors();
+    ResolverServer server = new ResolverServer(manager, port, threads);
+    server.start();
+    System.out.println("resolver listening on 127.0.0.1:" + server.getPort());
+  }
+
+}
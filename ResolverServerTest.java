@@ -0,0 +1,165 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import org.json.simple.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the ResolverServer and ResolverClient
+ */
+class ResolverServerTest {
+  private PackageManager packageManagerInstance; // the package manager behind the server
+  private ResolverServer serverInstance; // the server under test
+  private ResolverClient clientInstance; // client connected to the server
+
+  /**
+   * This method runs before every test method and starts a server on a free port for the graph
+   * A->[B, C], B->[D], C->[D], E->[D], F->[G], G->[F]
+   */
+  @BeforeEach
+  public void setUp() throws Exception {
+    Graph graph = new Graph();
+    graph.addEdge("A", "B");
+    graph.addEdge("A", "C");
+    graph.addEdge("B", "D");
+    graph.addEdge("C", "D");
+    graph.addEdge("E", "D");
+    graph.addEdge("F", "G");
+    graph.addEdge("G", "F");
+    packageManagerInstance = new PackageManager(graph);
+    serverInstance = new ResolverServer(packageManagerInstance, 0, 2);
+    serverInstance.start();
+    clientInstance = new ResolverClient(serverInstance.getPort());
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    serverInstance.stop();
+  }
+
+  /**
+   * This method checks that the remote results match the local package manager
+   */
+  @Test
+  public void test001_remote_results_match_local() throws Exception {
+    if (!clientInstance.getInstallationOrder("A").equals(
+        packageManagerInstance.getInstallationOrder("A")))
+      fail("The installation order should be " + packageManagerInstance.getInstallationOrder("A")
+          + " and not " + clientInstance.getInstallationOrder("A"));
+    if (!clientInstance.toInstall("A", "E").equals(packageManagerInstance.toInstall("A", "E")))
+      fail("toInstall should be " + packageManagerInstance.toInstall("A", "E"));
+  }
+
+  /**
+   * This method checks that the exceptions are passed on to the client
+   */
+  @Test
+  public void test002_exceptions_reach_the_client() throws Exception {
+    try {
+      clientInstance.getInstallationOrder("Z");
+      fail("Z is not in the graph");
+    } catch (PackageNotFoundException e) {
+      // expected
+    }
+    try {
+      clientInstance.getInstallationOrder("F");
+      fail("F is in a cycle");
+    } catch (CycleException e) {
+      // expected
+    }
+  }
+
+  /**
+   * This method checks that concurrent requests are counted and either computed or coalesced
+   */
+  @Test
+  public void test003_concurrent_requests_and_stats() throws Exception {
+    ExecutorService clients = Executors.newFixedThreadPool(8);
+    List<Future<List<String>>> results = new ArrayList<Future<List<String>>>();
+    for (int i = 0; i < 40; i++) {
+      results.add(clients.submit(new Callable<List<String>>() {
+        public List<String> call() throws Exception {
+          return clientInstance.getInstallationOrder("A");
+        }
+      }));
+    }
+    List<String> expected = packageManagerInstance.getInstallationOrder("A");
+    for (Future<List<String>> result : results) {
+      if (!result.get().equals(expected))
+        fail("every client must get the same order");
+    }
+    clients.shutdown();
+
+    JSONObject stats = clientInstance.getStats();
+    long requests = (Long) stats.get("requests");
+    long coalesced = (Long) stats.get("coalesced");
+    long computations = (Long) stats.get("computations");
+    if (requests != 40 || coalesced + computations != 40)
+      fail("40 requests must be computed or coalesced, got " + stats);
+  }
+
+  /**
+   * This method checks that identical requests arriving while their computation runs are
+   * coalesced into that one computation
+   */
+  @Test
+  public void test004_identical_requests_share_one_computation() throws Exception {
+    final CountDownLatch release = new CountDownLatch(1);
+    Graph slow = new Graph() { // holds every resolve until all requests have arrived
+      @Override
+      public List<String> getAdjacentVerticesOf(String vertex) {
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.getAdjacentVerticesOf(vertex);
+      }
+    };
+    slow.addEdge("A", "B");
+    final PackageManager manager = new PackageManager(slow);
+    ResolverServer server = new ResolverServer(manager, 0, 8);
+    server.start();
+    final ResolverClient client = new ResolverClient(server.getPort());
+    ExecutorService clients = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<List<String>>> results = new ArrayList<Future<List<String>>>();
+      for (int i = 0; i < 8; i++) {
+        results.add(clients.submit(new Callable<List<String>>() {
+          public List<String> call() throws Exception {
+            return client.getInstallationOrder("A");
+          }
+        }));
+      }
+      long deadline = System.currentTimeMillis() + 10000;
+      while ((Long) server.getStats().get("requests") < 8) {
+        if (System.currentTimeMillis() > deadline)
+          fail("the 8 requests did not reach the server");
+        Thread.sleep(5);
+      }
+      release.countDown();
+      for (Future<List<String>> result : results) {
+        if (!result.get().equals(manager.getInstallationOrder("A")))
+          fail("every client must get the same order");
+      }
+      JSONObject stats = server.getStats();
+      if ((Long) stats.get("computations") != 1 || (Long) stats.get("coalesced") != 7)
+        fail("8 identical requests must share 1 computation, got " + stats);
+    } finally {
+      clients.shutdown();
+      server.stop();
+    }
+  }
+
+}
@@ -0,0 +1,111 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filename:   ShardNode.java
+ * Project:    p4
+ *
+ * One node of a DistributedResolver. A node only stores the packages of its own shard together
+ * with their dependency lists; dependencies owned by other shards are known by name only.
+ *
+ * The node answers one kind of message: given a frontier of its own packages, it walks their
+ * dependencies as far as they stay on this shard and returns the dependency lists it walked plus
+ * the dependencies it reached on other shards, which become the next frontier of those shards.
+ */
+public class ShardNode {
+
+  /**
+   * The answer of a node to a frontier
+   */
+  public static class Expansion {
+    private final Map<String, List<String>> dependencies; // dependency lists of walked packages
+    private final Set<String> remote; // dependencies owned by other shards
+
+    public Expansion(Map<String, List<String>> dependencies, Set<String> remote) {
+      this.dependencies = dependencies;
+      this.remote = remote;
+    }
+
+    /**
+     * @return Map<String, List<String>> of every package walked on the node to its dependencies
+     */
+    public Map<String, List<String>> getDependencies() {
+      return this.dependencies;
+    }
+
+    /**
+     * @return Set<String> of the dependencies reached on other shards
+     */
+    public Set<String> getRemote() {
+      return this.remote;
+    }
+  }
+
+  private final int shard; // the shard this node serves
+  private final HashMap<String, List<String>> packages; // owned packages and their dependencies
+
+  /**
+   * Creates a node from the packages a partition assigned to the shard
+   *
+   * @param graph     the full dependency graph, only read while the node is created
+   * @param partition the partition of the graph
+   * @param shard     the shard served by this node
+   */
+  public ShardNode(GraphADT graph, GraphPartitioner.Partition partition, int shard) {
+    this.shard = shard;
+    this.packages = new HashMap<String, List<String>>();
+    for (String pkg : partition.getPackages(shard))
+      packages.put(pkg, new ArrayList<String>(graph.getAdjacentVerticesOf(pkg)));
+  }
+
+  /**
+   * @return the shard this node serves
+   */
+  public int getShard() {
+    return this.shard;
+  }
+
+  /**
+   * @return the number of packages stored on this node
+   */
+  public int getPackageCount() {
+    return packages.size();
+  }
+
+  /**
+   * This method walks the dependencies of the frontier as far as they are owned by this node
+   *
+   * @param frontier packages owned by this node, packages it does not own are ignored
+   * @return Expansion with the walked dependency lists and the dependencies on other shards
+   */
+  public Expansion expand(Collection<String> frontier) {
+    LinkedHashMap<String, List<String>> walked = new LinkedHashMap<String, List<String>>();
+    Set<String> remote = new HashSet<String>();
+    ArrayDeque<String> queue = new ArrayDeque<String>();
+    for (String pkg : frontier) {
+      if (packages.containsKey(pkg) && !walked.containsKey(pkg)) {
+        walked.put(pkg, packages.get(pkg));
+        queue.add(pkg);
+      }
+    }
+    while (!queue.isEmpty()) {
+      for (String dependency : walked.get(queue.poll())) {
+        if (!packages.containsKey(dependency)) {
+          remote.add(dependency);
+        } else if (!walked.containsKey(dependency)) {
+          walked.put(dependency, packages.get(dependency));
+          queue.add(dependency);
+        }
+      }
+    }
+    return new Expansion(walked, remote);
+  }
+
+}
@@ -0,0 +1,268 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Filename:   TransitiveReduction.java
+ * Project:    p4
+ *
+ * Finds the dependency edges that are already implied by other dependencies. If A depends on B
+ * and C and B depends on C, the edge A->C is redundant: every installation order of the graph
+ * without it is still valid for the graph with it. Removing all redundant edges gives the unique
+ * smallest graph with the same installation orders, the transitive reduction.
+ *
+ * The packages are processed in topological order, dependencies first, so the set of packages
+ * reachable from each dependency is known when a package is processed. The dependencies of a
+ * package are visited nearest first (in reverse topological order); a dependency that is already
+ * reachable through a nearer one is redundant, otherwise it is kept and its reachable set is
+ * added. Reachable sets are CompressedBitSets and packages of the same level of the DAG are
+ * processed in parallel, as in RegistryAnalytics. A set is released as soon as every package
+ * depending on it is done.
+ *
+ * The reduction is only defined for acyclic graphs.
+ */
+public class TransitiveReduction {
+
+  private static final int SEQUENTIAL_THRESHOLD = 64; // packages per fork-join leaf task
+
+  /**
+   * The reduced graph and the edges that were removed
+   */
+  public static class Result {
+    private final Graph graph;
+    private final Map<String, List<String>> removed;
+    private final int removedCount;
+
+    public Result(Graph graph, Map<String, List<String>> removed, int removedCount) {
+      this.graph = graph;
+      this.removed = removed;
+      this.removedCount = removedCount;
+    }
+
+    /**
+     * @return Graph with the same packages and only the edges that are not redundant
+     */
+    public Graph getGraph() {
+      return this.graph;
+    }
+
+    /**
+     * @return Map<String, List<String>> of every package with redundant dependencies to those
+     *         dependencies
+     */
+    public Map<String, List<String>> getRemoved() {
+      return this.removed;
+    }
+
+    /**
+     * @return the number of redundant edges
+     */
+    public int getRemovedCount() {
+      return this.removedCount;
+    }
+  }
+
+  private final GraphADT graph; // the graph to reduce
+  private final ForkJoinPool pool; // pool running the levels
+
+  /**
+   * Creates the reduction for a graph using the common fork-join pool
+   *
+   * @param graph the dependency graph
+   */
+  public TransitiveReduction(GraphADT graph) {
+    this(graph, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates the reduction for a graph using the given pool
+   *
+   * @param graph the dependency graph
+   * @param pool  the pool that processes the levels
+   */
+  public TransitiveReduction(GraphADT graph, ForkJoinPool pool) {
+    this.graph = graph;
+    this.pool = pool;
+  }
+
+  /**
+   * This method computes the transitive reduction of the current state of the graph. The graph
+   * itself is not changed.
+   *
+   * @return Result with the reduced graph and the removed edges
+   * @throws CycleException if the graph contains a cycle
+   */
+  public Result reduce() throws CycleException {
+    IndexedGraph snapshot = IndexedGraph.of(graph);
+    Condensation condensation = snapshot.condense();
+    int n = snapshot.order();
+    if (condensation.componentCount() != n)
+      throw new CycleException();
+    for (int c = 0; c < n; c++) {
+      if (condensation.isCyclic(c)) // a package that depends on itself
+        throw new CycleException();
+    }
+
+    // the successors of every package by component id, dependencies have lower ids
+    int[][] successors = new int[n][];
+    int[] inDegree = new int[n];
+    int[] level = new int[n];
+    int levels = 0;
+    for (int c = 0; c < n; c++) {
+      int v = condensation.member(c, 0);
+      successors[c] = new int[snapshot.outDegree(v)];
+      for (int i = 0; i < successors[c].length; i++) {
+        int w = condensation.component(snapshot.successor(v, i));
+        successors[c][i] = w;
+        inDegree[w]++;
+        level[c] = Math.max(level[c], level[w] + 1);
+      }
+      levels = Math.max(levels, level[c] + 1);
+    }
+
+    // bucket the packages by level
+    int[] levelOffsets = new int[levels + 1];
+    for (int c = 0; c < n; c++)
+      levelOffsets[level[c] + 1]++;
+    for (int l = 0; l < levels; l++)
+      levelOffsets[l + 1] += levelOffsets[l];
+    int[] byLevel = new int[n];
+    int[] fill = Arrays.copyOf(levelOffsets, levels);
+    for (int c = 0; c < n; c++)
+      byLevel[fill[level[c]]++] = c;
+
+    Reachability reachability = new Reachability(successors, inDegree);
+    for (int l = 0; l < levels; l++) {
+      int from = levelOffsets[l];
+      int to = levelOffsets[l + 1];
+      if (to - from <= SEQUENTIAL_THRESHOLD) // small levels are not worth a task
+        reachability.compute(byLevel, from, to);
+      else
+        pool.invoke(new LevelTask(reachability, byLevel, from, to));
+    }
+
+    // copy the graph without the redundant edges, keeping the order of the dependency lists
+    Graph reduced = new Graph();
+    HashMap<String, List<String>> removed = new HashMap<String, List<String>>();
+    int removedCount = 0;
+    for (int c = 0; c < n; c++) {
+      String pkg = snapshot.nameOf(condensation.member(c, 0));
+      reduced.addVertex(pkg);
+      boolean[] redundant = reachability.redundant[c];
+      for (int i = 0; i < successors[c].length; i++) {
+        String dependency = snapshot.nameOf(condensation.member(successors[c][i], 0));
+        if (redundant == null || !redundant[i]) {
+          reduced.addEdge(pkg, dependency);
+        } else {
+          if (!removed.containsKey(pkg))
+            removed.put(pkg, new ArrayList<String>());
+          removed.get(pkg).add(dependency);
+          removedCount++;
+        }
+      }
+    }
+    return new Result(reduced, removed, removedCount);
+  }
+
+  /**
+   * The state shared by the tasks of one reduction
+   */
+  private static class Reachability {
+    private final int[][] successors; // dependencies by package, as component ids
+    private final int[] inDegree; // number of dependents of each package
+    private final AtomicIntegerArray pending; // dependents that still need the reachable set
+    private final CompressedBitSet[] sets; // packages reachable from each package, without itself
+    private final boolean[][] redundant; // redundant flag by dependency position, null if none
+
+    private Reachability(int[][] successors, int[] inDegree) {
+      this.successors = successors;
+      this.inDegree = inDegree;
+      this.pending = new AtomicIntegerArray(inDegree);
+      this.sets = new CompressedBitSet[successors.length];
+      this.redundant = new boolean[successors.length][];
+    }
+
+    /**
+     * Helper method that processes the packages byLevel[from] .. byLevel[to-1]
+     */
+    private void compute(int[] byLevel, int from, int to) {
+      for (int i = from; i < to; i++)
+        compute(byLevel[i]);
+    }
+
+    /**
+     * Helper method that finds the redundant dependencies of one package
+     */
+    private void compute(int c) {
+      int[] deps = successors[c];
+      long[] nearestFirst = new long[deps.length]; // component << 32 | position, sorted below
+      for (int i = 0; i < deps.length; i++)
+        nearestFirst[i] = (long) deps[i] << 32 | i;
+      Arrays.sort(nearestFirst); // nearest dependencies have the highest ids, so walk it backwards
+
+      CompressedBitSet reachable = null;
+      for (int k = deps.length - 1; k >= 0; k--) {
+        int i = (int) nearestFirst[k];
+        int w = deps[i];
+        if (reachable == null) { // the nearest dependency is never redundant
+          if (inDegree[w] == 1) { // nobody else needs its set, take it over
+            reachable = sets[w];
+            sets[w] = null;
+          } else {
+            reachable = sets[w].copy();
+          }
+          reachable.add(w);
+        } else if (reachable.contains(w)) {
+          if (redundant[c] == null)
+            redundant[c] = new boolean[deps.length];
+          redundant[c][i] = true;
+        } else {
+          reachable.add(w);
+          reachable.or(sets[w]);
+        }
+      }
+      if (inDegree[c] > 0)
+        sets[c] = reachable == null ? new CompressedBitSet() : reachable;
+
+      for (int w : deps) { // release dependencies whose last dependent is done
+        if (pending.decrementAndGet(w) == 0)
+          sets[w] = null;
+      }
+    }
+  }
+
+  /**
+   * Fork-join task processing a range of packages of one level
+   */
+  @SuppressWarnings("serial")
+  private static class LevelTask extends RecursiveAction {
+    private final Reachability reachability;
+    private final int[] byLevel;
+    private final int from;
+    private final int to;
+
+    private LevelTask(Reachability reachability, int[] byLevel, int from, int to) {
+      this.reachability = reachability;
+      this.byLevel = byLevel;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= SEQUENTIAL_THRESHOLD) {
+        reachability.compute(byLevel, from, to);
+      } else {
+        int mid = (from + to) >>> 1;
+        invokeAll(new LevelTask(reachability, byLevel, from, mid),
+            new LevelTask(reachability, byLevel, mid, to));
+      }
+    }
+  }
+
+}
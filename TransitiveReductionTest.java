@@ -0,0 +1,105 @@
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class represents a test suite for the TransitiveReduction
+ */
+class TransitiveReductionTest {
+  private Graph graphInstance; // the dependency graph used by every test
+
+  /**
+   * This method runs before every test method and builds the graph
+   * A->[B, C, D], B->[C, D], C->[D], E->[D]
+   */
+  @BeforeEach
+  public void setUp() {
+    graphInstance = new Graph();
+    graphInstance.addEdge("A", "B");
+    graphInstance.addEdge("A", "C");
+    graphInstance.addEdge("A", "D");
+    graphInstance.addEdge("B", "C");
+    graphInstance.addEdge("B", "D");
+    graphInstance.addEdge("C", "D");
+    graphInstance.addEdge("E", "D");
+  }
+
+  /**
+   * This method runs after every test method
+   */
+  @AfterEach
+  public void tearDown() {
+    graphInstance = null;
+  }
+
+  /**
+   * This method checks the reduction of a small graph
+   */
+  @Test
+  public void test001_removes_implied_dependencies() throws Exception {
+    TransitiveReduction.Result result = new TransitiveReduction(graphInstance).reduce();
+    if (result.getRemovedCount() != 3)
+      fail("A->C, A->D and B->D are implied, but " + result.getRemoved() + " were removed");
+    if (!result.getRemoved().get("A").containsAll(Arrays.asList("C", "D"))
+        || !result.getRemoved().get("B").equals(Arrays.asList("D")))
+      fail("A->C, A->D and B->D are implied, but " + result.getRemoved() + " were removed");
+    Graph reduced = result.getGraph();
+    if (reduced.size() != 4 || reduced.order() != 5)
+      fail("A->B, B->C, C->D and E->D are left, but size = " + reduced.size());
+    if (graphInstance.size() != 7)
+      fail("the original graph must not be changed");
+  }
+
+  /**
+   * This method checks on a random DAG that the reduction keeps every dependency relation and
+   * only keeps edges that are not implied by others
+   */
+  @Test
+  public void test002_random_dag_is_minimal_and_equivalent() throws Exception {
+    Graph random = new Graph();
+    Random rnd = new Random(39);
+    for (int i = 0; i < 400; i++) {
+      random.addVertex("p" + i);
+      for (int d = 0; d < 5 && i + 1 < 400; d++)
+        random.addEdge("p" + i, "p" + (i + 1 + rnd.nextInt(Math.min(30, 399 - i))));
+    }
+    Graph reduced = new TransitiveReduction(random).reduce().getGraph();
+    ReachabilityIndex before = new ReachabilityIndex(random);
+    ReachabilityIndex after = new ReachabilityIndex(reduced);
+    for (int i = 0; i < 400; i++) {
+      for (int j = 0; j < 400; j++) {
+        if (before.reaches("p" + i, "p" + j) != after.reaches("p" + i, "p" + j))
+          fail("p" + i + " and p" + j + " must keep their dependency relation");
+      }
+    }
+    for (String pkg : reduced.getAllVertices()) {
+      for (String dependency : reduced.getAdjacentVerticesOf(pkg)) {
+        for (String other : reduced.getAdjacentVerticesOf(pkg)) {
+          if (!other.equals(dependency) && after.reaches(other, dependency))
+            fail(pkg + "->" + dependency + " is implied by " + other + " and must be removed");
+        }
+      }
+    }
+  }
+
+  /**
+   * This method checks cycles and the PackageManager entry point
+   */
+  @Test
+  public void test003_cycles_and_package_manager() throws Exception {
+    PackageManager manager = new PackageManager(graphInstance);
+    if (manager.removeRedundantDependencies() != 3 || graphInstance.size() != 4)
+      fail("the package manager must remove the 3 implied dependencies from its graph");
+    graphInstance.addEdge("D", "A");
+    try {
+      new TransitiveReduction(graphInstance).reduce();
+      fail("A, B, C and D are in a cycle");
+    } catch (CycleException e) {
+      // expected
+    }
+  }
+
+}